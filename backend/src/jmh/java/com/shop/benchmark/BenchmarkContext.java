@@ -0,0 +1,81 @@
+package com.shop.benchmark;
+
+import com.shop.ShopApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 基准测试用的应用上下文
+ * <p>
+ * 每个 JMH 进程只启动一次：先用 db/init.sql 初始化 H2 内存库（去掉建库和 USE 语句，索引名加表名前缀），
+ * 再以 bench 配置启动不带 Web 容器的应用。
+ */
+final class BenchmarkContext {
+
+    static final String DB_URL = "jdbc:h2:mem:shop_db;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final Pattern CREATE_TABLE = Pattern.compile("^CREATE TABLE `(\\w+)`");
+
+    private static ConfigurableApplicationContext context;
+
+    private BenchmarkContext() {
+    }
+
+    static synchronized ConfigurableApplicationContext get() {
+        if (context == null) {
+            initSchema();
+            context = new SpringApplicationBuilder(ShopApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .profiles("bench")
+                    // 以命令行参数传入，优先于 CI 等环境中的 SPRING_DATASOURCE_* 变量
+                    .run("--spring.datasource.driver-class-name=org.h2.Driver",
+                            "--spring.datasource.url=" + DB_URL,
+                            "--spring.datasource.username=sa",
+                            "--spring.datasource.password=");
+        }
+        return context;
+    }
+
+    static <T> T bean(Class<T> type) {
+        return get().getBean(type);
+    }
+
+    private static void initSchema() {
+        StringBuilder script = new StringBuilder();
+        try (InputStream in = new ClassPathResource("db/init.sql").getInputStream()) {
+            String table = "";
+            for (String line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                if (line.startsWith("CREATE DATABASE") || line.startsWith("USE ")) {
+                    continue;
+                }
+                Matcher matcher = CREATE_TABLE.matcher(line);
+                if (matcher.find()) {
+                    table = matcher.group(1);
+                }
+                // H2 的索引名在整个 schema 内唯一，MySQL 只要求表内唯一，加上表名前缀
+                script.append(line.replace("KEY `", "KEY `" + table + "_")).append('\n');
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("读取 db/init.sql 失败", e);
+        }
+        try (Connection connection = DriverManager.getConnection(DB_URL, "sa", "")) {
+            ScriptUtils.executeSqlScript(connection,
+                    new ByteArrayResource(script.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (SQLException e) {
+            throw new IllegalStateException("初始化基准测试数据库失败", e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.shop.benchmark;
+
+import com.shop.entity.Cart;
+import com.shop.entity.Order;
+import com.shop.entity.Product;
+import com.shop.mapper.CartMapper;
+import com.shop.mapper.ProductMapper;
+import com.shop.metrics.SqlMetricsInterceptor;
+import com.shop.service.CartService;
+import com.shop.service.OrderService;
+import com.shop.service.ProductService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下单链路基准：读取选中的购物车项、扣减库存、创建订单。
+ * 按购物车商品数分组，下单基准另外统计每次下单执行的 SQL 语句数（数据库往返次数）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+
+    private static final Long USER_ID = 2L;
+
+    /**
+     * 购物车中的商品数
+     */
+    @Param({"1", "10", "40", "200"})
+    private int cartSize;
+
+    private CartService cartService;
+
+    private OrderService orderService;
+
+    private ProductService productService;
+
+    private CartMapper cartMapper;
+
+    private SqlMetricsInterceptor sqlMetrics;
+
+    private List<Long> productIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cartService = BenchmarkContext.bean(CartService.class);
+        orderService = BenchmarkContext.bean(OrderService.class);
+        productService = BenchmarkContext.bean(ProductService.class);
+        cartMapper = BenchmarkContext.bean(CartMapper.class);
+        sqlMetrics = BenchmarkContext.bean(SqlMetricsInterceptor.class);
+
+        // 初始数据的商品不够时补足，库存放大，整轮测试不会扣完
+        ProductMapper productMapper = BenchmarkContext.bean(ProductMapper.class);
+        List<Long> onSale = onSaleProductIds(productMapper);
+        for (int i = onSale.size(); i < cartSize; i++) {
+            Product product = new Product();
+            product.setName("基准测试商品" + i);
+            product.setPrice(new BigDecimal("99.00"));
+            product.setStock(0);
+            product.setCategoryId(1L);
+            product.setStatus(1);
+            product.setSales(0);
+            product.setDeleted(0);
+            productMapper.insert(product);
+        }
+        productIds = onSaleProductIds(productMapper).subList(0, cartSize);
+        for (Long productId : productIds) {
+            productMapper.adjustStock(productId, 100_000_000);
+        }
+        fillCart();
+    }
+
+    @Benchmark
+    public List<Cart> getCheckedCartItems() {
+        return cartService.getCheckedCartItems(USER_ID);
+    }
+
+    @Benchmark
+    public boolean reduceStock() {
+        return productService.reduceStock(productIds.get(0), 1);
+    }
+
+    /**
+     * 下单会清空选中的购物车项，每次调用前由 {@link FullCart} 重新填满
+     */
+    @Benchmark
+    public Order createOrder(FullCart fullCart, RoundTrips roundTrips) {
+        long before = sqlMetrics.getStatementCount();
+        Order order = orderService.createOrder(USER_ID, "张三", "13800000000", "北京市朝阳区", null);
+        roundTrips.sqlStatements += sqlMetrics.getStatementCount() - before;
+        roundTrips.orders++;
+        return order;
+    }
+
+    /**
+     * 每次下单前把购物车重新填满（不计入耗时）；单独作为状态类，只作用于下单基准
+     */
+    @State(Scope.Thread)
+    public static class FullCart {
+
+        @Setup(Level.Invocation)
+        public void refill(CheckoutBenchmark benchmark) {
+            benchmark.fillCart();
+        }
+    }
+
+    /**
+     * 下单执行的 SQL 语句数，作为附加指标输出；sqlStatements / orders 即每单的数据库往返次数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+
+        public long sqlStatements;
+
+        public long orders;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            sqlStatements = 0;
+            orders = 0;
+        }
+    }
+
+    private static List<Long> onSaleProductIds(ProductMapper productMapper) {
+        return productMapper.selectList(null).stream()
+                .filter(product -> Integer.valueOf(1).equals(product.getStatus()))
+                .map(Product::getId)
+                .toList();
+    }
+
+    private void fillCart() {
+        cartMapper.delete(null);
+        for (Long productId : productIds) {
+            Cart cart = new Cart();
+            cart.setUserId(USER_ID);
+            cart.setProductId(productId);
+            cart.setQuantity(1);
+            cart.setChecked(1);
+            cartMapper.insert(cart);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.shop.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.common.Result;
+import com.shop.entity.Product;
+import com.shop.order.OrderNoGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 纯内存热点基准：订单号生成、响应结果 JSON 序列化（不依赖数据库）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    private OrderNoGenerator orderNoGenerator;
+
+    private ObjectMapper objectMapper;
+
+    private Result<List<Product>> productPage;
+
+    @Setup
+    public void setUp() {
+        orderNoGenerator = new OrderNoGenerator(1);
+        // 与应用中 spring.jackson 的日期配置一致
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .simpleDateFormat("yyyy-MM-dd HH:mm:ss")
+                .build();
+
+        List<Product> products = new ArrayList<>();
+        for (long i = 1; i <= 20; i++) {
+            Product product = new Product();
+            product.setId(i);
+            product.setName("商品" + i);
+            product.setDescription("基准测试商品描述，长度与实际商品相近。");
+            product.setPrice(new BigDecimal("199.00"));
+            product.setStock(100);
+            product.setSales(10);
+            product.setCategoryId(1L);
+            product.setCategoryName("数码产品");
+            product.setImage("https://example.com/images/" + i + ".jpg");
+            product.setStatus(1);
+            product.setCreateTime(LocalDateTime.now());
+            products.add(product);
+        }
+        productPage = Result.success(products);
+    }
+
+    @Benchmark
+    public String nextOrderNo() {
+        return Long.toString(orderNoGenerator.nextId(7));
+    }
+
+    @Benchmark
+    public String serializeProductPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(productPage);
+    }
+}
@@ -0,0 +1,110 @@
+package com.shop.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 基准回归检查：对比两份 JMH JSON 结果（基线、本次），任一基准变慢超过阈值时以非零状态退出。
+ * <p>
+ * 按 基准名 + 参数 匹配，只比较两边都有的基准；平均耗时类模式越小越好，吞吐量模式越大越好。
+ * 带 sqlStatements、orders 附加指标的基准另外比较每次操作的 SQL 语句数，增加 1 条及以上即视为回归。
+ * <p>
+ * 用法：RegressionCheck &lt;基线 JSON&gt; &lt;本次 JSON&gt; [阈值，默认 0.25 即 25%]
+ */
+public final class RegressionCheck {
+
+    private static final double DEFAULT_THRESHOLD = 0.25;
+
+    private RegressionCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: RegressionCheck <baseline.json> <current.json> [threshold]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("%-70s 新增，无基线%n", entry.getKey());
+                continue;
+            }
+            JsonNode now = entry.getValue();
+            double baseScore = base.path("primaryMetric").path("score").asDouble();
+            double nowScore = now.path("primaryMetric").path("score").asDouble();
+            // 统一换算为“变慢的比例”
+            double slowdown = "thrpt".equals(now.path("mode").asText())
+                    ? baseScore / nowScore - 1
+                    : nowScore / baseScore - 1;
+            boolean regressed = slowdown > threshold;
+            System.out.printf("%-70s %12.3f -> %12.3f %s  %+.1f%%%s%n", entry.getKey(), baseScore, nowScore,
+                    now.path("primaryMetric").path("scoreUnit").asText(), slowdown * 100, regressed ? "  回归" : "");
+            if (regressed) {
+                regressions.add(String.format("%s 变慢 %.1f%%", entry.getKey(), slowdown * 100));
+            }
+
+            Double baseStatements = statementsPerOperation(base);
+            Double nowStatements = statementsPerOperation(now);
+            if (baseStatements != null && nowStatements != null) {
+                boolean more = nowStatements - baseStatements >= 1;
+                System.out.printf("%-70s %12.1f -> %12.1f SQL/op%s%n", "  └ SQL 语句数", baseStatements, nowStatements,
+                        more ? "  回归" : "");
+                if (more) {
+                    regressions.add(String.format("%s 每次操作的 SQL 语句数 %.1f -> %.1f",
+                            entry.getKey(), baseStatements, nowStatements));
+                }
+            }
+        }
+
+        if (!regressions.isEmpty()) {
+            System.out.printf("%n基准回归（阈值 %.0f%%）:%n", threshold * 100);
+            regressions.forEach(regression -> System.out.println("  " + regression));
+            System.exit(1);
+        }
+        System.out.printf("%n无基准回归（阈值 %.0f%%）%n", threshold * 100);
+    }
+
+    /**
+     * 读取 JMH 结果，键为 基准名 + 参数
+     */
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                params.put(field.getKey(), field.getValue().asText());
+            }
+            String name = result.path("benchmark").asText().replace("com.shop.benchmark.", "");
+            results.put(params.isEmpty() ? name : name + params, result);
+        }
+        return results;
+    }
+
+    /**
+     * 每次操作的 SQL 语句数（sqlStatements / orders），没有这两个附加指标时返回 null
+     */
+    private static Double statementsPerOperation(JsonNode result) {
+        JsonNode statements = result.path("secondaryMetrics").path("sqlStatements").path("score");
+        JsonNode operations = result.path("secondaryMetrics").path("orders").path("score");
+        if (statements.isMissingNode() || operations.isMissingNode() || operations.asDouble() <= 0) {
+            return null;
+        }
+        return statements.asDouble() / operations.asDouble();
+    }
+}
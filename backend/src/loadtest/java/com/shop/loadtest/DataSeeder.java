@@ -0,0 +1,301 @@
+package com.shop.loadtest;
+
+import com.shop.order.OrderNoGenerator;
+import com.shop.sharding.OrderShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 压测造数：直接通过 JDBC 批量写入大量商品、用户、购物车和历史订单
+ * <p>
+ * 造出的数据 ID 从 {@link #ID_BASE} + 1 开始连续分配，压测客户端按同样的范围取用户和商品；
+ * 前 hot-products 个商品库存充足，作为秒杀热点商品。随机数种子固定，同样的参数得到同样的数据。
+ * 历史订单不含待付款状态，避免启动后被超时关单任务批量关闭。订单ID与应用生成的一样在低位带用户的分片基因，
+ * 后端开启订单分表时需用 --order-shards 指定相同的分片数，造完后按分片搬到分表。
+ * <p>
+ * 只用于本地或压测环境的数据库；造数期间不经过应用，应在后端启动前执行，或执行后重启后端以清空缓存。
+ */
+public final class DataSeeder {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSeeder.class);
+
+    /**
+     * 造数 ID 的起点，与 init.sql 中的初始数据错开
+     */
+    static final long ID_BASE = 1_000_000L;
+
+    static final int HOT_PRODUCT_STOCK = 100_000_000;
+
+    private static final int PRODUCT_STOCK = 100_000;
+
+    private static final int HISTORY_DAYS = 180;
+
+    private static final String DEFAULT_URL = "jdbc:mysql://localhost:33066/shop_db"
+            + "?serverTimezone=Asia/Shanghai&characterEncoding=UTF-8&useSSL=false&allowPublicKeyRetrieval=true";
+
+    private final Connection connection;
+
+    private final int batchSize;
+
+    private final SplittableRandom random;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    private DataSeeder(Connection connection, int batchSize, long seed) {
+        this.connection = connection;
+        this.batchSize = batchSize;
+        this.random = new SplittableRandom(seed);
+    }
+
+    public static void main(String[] args) throws SQLException {
+        Options options = new Options(args);
+        String url = options.getString("url", DEFAULT_URL);
+        if (url.startsWith("jdbc:mysql:") && !url.contains("rewriteBatchedStatements")) {
+            // 批量插入合并为多值 INSERT，速度差一个数量级
+            url += (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+        }
+        long users = options.getLong("users", 1_000_000);
+        long products = options.getLong("products", 1_000_000);
+        int cartsPerUser = options.getInt("carts-per-user", 2);
+        long orders = options.getLong("orders", 2_000_000);
+        int hotProducts = options.getInt("hot-products", 10);
+        int orderShards = options.getInt("order-shards", 1);
+
+        try (Connection connection = DriverManager.getConnection(url,
+                options.getString("username", "root"), options.getString("password", "root123"))) {
+            connection.setAutoCommit(false);
+            DataSeeder seeder = new DataSeeder(connection, options.getInt("batch-size", 2000),
+                    options.getLong("seed", 42));
+            if (seeder.alreadySeeded()) {
+                if (!options.getBoolean("force", false)) {
+                    logger.warn("数据库中已有造数数据，如需重建请加 --force");
+                    return;
+                }
+                seeder.clean(orderShards);
+            }
+            long start = System.currentTimeMillis();
+            seeder.seedUsers(users);
+            seeder.seedProducts(products, hotProducts);
+            seeder.seedCarts(users, products, cartsPerUser);
+            seeder.seedOrders(orders, users, products);
+            if (orderShards > 1) {
+                seeder.moveOrdersToShards(orderShards);
+            }
+            logger.info("造数完成: users={}, products={}, carts={}, orders={}, 耗时 {}s",
+                    users, products, users * cartsPerUser, orders, (System.currentTimeMillis() - start) / 1000);
+        }
+    }
+
+    private boolean alreadySeeded() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM `user` WHERE id > " + ID_BASE)) {
+            rs.next();
+            return rs.getLong(1) > 0;
+        }
+    }
+
+    private void clean(int orderShards) throws SQLException {
+        logger.info("清理已有造数数据");
+        try (Statement statement = connection.createStatement()) {
+            for (int shard = 0; orderShards > 1 && shard < orderShards; shard++) {
+                statement.executeUpdate("DELETE FROM " + OrderShardRouter.tableName("order_item", shard)
+                        + " WHERE order_id > " + ID_BASE);
+                statement.executeUpdate("DELETE FROM " + OrderShardRouter.tableName("orders", shard)
+                        + " WHERE id > " + ID_BASE);
+            }
+            statement.executeUpdate("DELETE FROM order_item WHERE order_id > " + ID_BASE);
+            statement.executeUpdate("DELETE FROM orders WHERE id > " + ID_BASE);
+            statement.executeUpdate("DELETE FROM cart WHERE user_id > " + ID_BASE);
+            statement.executeUpdate("DELETE FROM product WHERE id > " + ID_BASE);
+            statement.executeUpdate("DELETE FROM `user` WHERE id > " + ID_BASE);
+        }
+        connection.commit();
+    }
+
+    private void seedUsers(long count) throws SQLException {
+        String sql = "INSERT INTO `user` (id, username, password, nickname, phone, role, status, create_time)"
+                + " VALUES (?, ?, '123456', ?, ?, 0, 1, ?)";
+        insert("user", sql, count, (ps, n) -> {
+            long id = ID_BASE + n + 1;
+            ps.setLong(1, id);
+            ps.setString(2, "lt_user_" + (n + 1));
+            ps.setString(3, "压测用户" + (n + 1));
+            ps.setString(4, String.format("139%08d", (n + 1) % 100_000_000));
+            ps.setTimestamp(5, randomTime());
+        });
+    }
+
+    private void seedProducts(long count, int hotProducts) throws SQLException {
+        List<Long> categoryIds = categoryIds();
+        String sql = "INSERT INTO product (id, name, description, price, stock, category_id, status, sales, create_time)"
+                + " VALUES (?, ?, ?, ?, ?, ?, 1, ?, ?)";
+        insert("product", sql, count, (ps, n) -> {
+            long categoryId = categoryIds.get((int) (n % categoryIds.size()));
+            ps.setLong(1, ID_BASE + n + 1);
+            ps.setString(2, "压测商品-" + (n + 1));
+            ps.setString(3, "压测商品 " + (n + 1) + "，分类 " + categoryId + "，批次 " + (n / 10_000));
+            ps.setBigDecimal(4, price(n));
+            ps.setInt(5, n < hotProducts ? HOT_PRODUCT_STOCK : PRODUCT_STOCK);
+            ps.setLong(6, categoryId);
+            ps.setInt(7, random.nextInt(10_000));
+            ps.setTimestamp(8, randomTime());
+        });
+    }
+
+    private void seedCarts(long users, long products, int cartsPerUser) throws SQLException {
+        String sql = "INSERT INTO cart (user_id, product_id, quantity, checked) VALUES (?, ?, ?, 0)";
+        // 同一用户的商品取不同的步长，保证 (user_id, product_id) 不重复
+        insert("cart", sql, users * cartsPerUser, (ps, n) -> {
+            long user = n / cartsPerUser;
+            long slot = n % cartsPerUser;
+            ps.setLong(1, ID_BASE + user + 1);
+            ps.setLong(2, ID_BASE + (user * 7919 + slot * 104_729) % products + 1);
+            ps.setInt(3, 1 + random.nextInt(3));
+        });
+    }
+
+    private void seedOrders(long count, long users, long products) throws SQLException {
+        String orderSql = "INSERT INTO orders (id, order_no, user_id, total_amount, status, receiver_name, receiver_phone,"
+                + " receiver_address, pay_time, delivery_time, finish_time, create_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String itemSql = "INSERT INTO order_item (order_id, product_id, product_name, product_price, quantity, subtotal, create_time)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement itemPs = connection.prepareStatement(itemSql)) {
+            insert("orders", orderSql, count, (ps, n) -> {
+                long userId = ID_BASE + random.nextLong(users) + 1;
+                long orderId = ((ID_BASE + n + 1) << OrderNoGenerator.GENE_BITS) | OrderShardRouter.gene(userId);
+                LocalDateTime createTime = now.minusMinutes(random.nextLong(HISTORY_DAYS * 24L * 60));
+                Timestamp created = Timestamp.valueOf(createTime);
+                BigDecimal total = BigDecimal.ZERO;
+                int items = 1 + random.nextInt(3);
+                for (int i = 0; i < items; i++) {
+                    long product = random.nextLong(products);
+                    int quantity = 1 + random.nextInt(3);
+                    BigDecimal price = price(product);
+                    BigDecimal subtotal = price.multiply(BigDecimal.valueOf(quantity));
+                    total = total.add(subtotal);
+                    itemPs.setLong(1, orderId);
+                    itemPs.setLong(2, ID_BASE + product + 1);
+                    itemPs.setString(3, "压测商品-" + (product + 1));
+                    itemPs.setBigDecimal(4, price);
+                    itemPs.setInt(5, quantity);
+                    itemPs.setBigDecimal(6, subtotal);
+                    itemPs.setTimestamp(7, created);
+                    itemPs.addBatch();
+                }
+                // 1-已付款 10%，2-已发货 10%，3-已完成 70%，4-已取消 10%
+                int roll = random.nextInt(10);
+                int status = roll == 0 ? 1 : roll == 1 ? 2 : roll == 2 ? 4 : 3;
+                LocalDateTime payTime = status == 4 ? null : createTime.plusMinutes(1 + random.nextInt(30));
+                LocalDateTime deliveryTime = status == 2 || status == 3 ? payTime.plusHours(1 + random.nextInt(48)) : null;
+                LocalDateTime finishTime = status == 3 ? deliveryTime.plusDays(1 + random.nextInt(7)) : null;
+
+                ps.setLong(1, orderId);
+                ps.setString(2, "LT" + orderId);
+                ps.setLong(3, userId);
+                ps.setBigDecimal(4, total);
+                ps.setInt(5, status);
+                ps.setString(6, "压测收货人");
+                ps.setString(7, "13900000000");
+                ps.setString(8, "压测地址");
+                ps.setTimestamp(9, payTime == null ? null : Timestamp.valueOf(payTime));
+                ps.setTimestamp(10, deliveryTime == null ? null : Timestamp.valueOf(deliveryTime));
+                ps.setTimestamp(11, finishTime == null ? null : Timestamp.valueOf(finishTime));
+                ps.setTimestamp(12, created);
+            }, itemPs);
+        }
+    }
+
+    /**
+     * 把造出的订单和订单项按订单ID所在分片搬到分表（分表不存在时按原表结构创建），每个分片一个事务
+     */
+    private void moveOrdersToShards(int shards) throws SQLException {
+        String itemColumns = "order_id, product_id, product_name, product_image, product_price, quantity, subtotal, create_time";
+        try (Statement statement = connection.createStatement()) {
+            for (int shard = 0; shard < shards; shard++) {
+                String orders = OrderShardRouter.tableName("orders", shard);
+                String items = OrderShardRouter.tableName("order_item", shard);
+                String condition = " > " + ID_BASE + " AND MOD(%s, " + shards + ") = " + shard;
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + orders + " LIKE orders");
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + items + " LIKE order_item");
+                int moved = statement.executeUpdate("INSERT INTO " + orders
+                        + " SELECT * FROM orders WHERE id" + condition.formatted("id"));
+                statement.executeUpdate("INSERT INTO " + items + " (" + itemColumns + ") SELECT " + itemColumns
+                        + " FROM order_item WHERE order_id" + condition.formatted("order_id"));
+                statement.executeUpdate("DELETE FROM order_item WHERE order_id" + condition.formatted("order_id"));
+                statement.executeUpdate("DELETE FROM orders WHERE id" + condition.formatted("id"));
+                connection.commit();
+                logger.info("订单已搬到分表 {}: {} 行", orders, moved);
+            }
+        }
+    }
+
+    private List<Long> categoryIds() throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id FROM category WHERE deleted = 0 ORDER BY id")) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("category 表为空，请先执行 db/init.sql");
+        }
+        return ids;
+    }
+
+    /**
+     * 按批插入 count 行，每批提交一次；extra 为同批一起提交的附属语句（如订单项）
+     */
+    private void insert(String table, String sql, long count, RowWriter writer,
+                        PreparedStatement... extra) throws SQLException {
+        logger.info("写入 {}: {} 行", table, count);
+        long start = System.currentTimeMillis();
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (long n = 0; n < count; n++) {
+                writer.write(ps, n);
+                ps.addBatch();
+                if ((n + 1) % batchSize == 0 || n == count - 1) {
+                    ps.executeBatch();
+                    for (PreparedStatement statement : extra) {
+                        statement.executeBatch();
+                    }
+                    connection.commit();
+                }
+                if ((n + 1) % 100_000 == 0) {
+                    logger.info("  {}: {}/{}", table, n + 1, count);
+                }
+            }
+        }
+        logger.info("写入 {} 完成，耗时 {}ms", table, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 商品价格由序号确定，订单项按同样的规则取价
+     */
+    private static BigDecimal price(long n) {
+        long cents = 100 + Math.floorMod(n * 2_654_435_761L, 500_000L);
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private Timestamp randomTime() {
+        return Timestamp.valueOf(now.minusMinutes(random.nextLong(HISTORY_DAYS * 24L * 60)));
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(PreparedStatement ps, long n) throws SQLException;
+    }
+}
@@ -0,0 +1,108 @@
+package com.shop.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按接口统计请求数、失败数和耗时分布（微秒精度）
+ * <p>
+ * 预热阶段不记录，{@link #start()} 之后才开始计数。
+ */
+final class LatencyStats {
+
+    /**
+     * 记录上限 60s，超出按上限计
+     */
+    private static final long MAX_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    private static final int MAX_REASONS = 20;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private volatile boolean recording;
+
+    private volatile long startNanos;
+
+    void start() {
+        startNanos = System.nanoTime();
+        recording = true;
+    }
+
+    boolean isRecording() {
+        return recording;
+    }
+
+    void success(String endpoint, long nanos) {
+        if (recording) {
+            endpoint(endpoint).histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), MAX_MICROS));
+        }
+    }
+
+    void failure(String endpoint, String reason) {
+        if (recording) {
+            Endpoint stats = endpoint(endpoint);
+            stats.errors.increment();
+            // 失败原因只保留前若干种，避免带参数的消息撑大统计
+            String key = stats.reasons.size() < MAX_REASONS || stats.reasons.containsKey(reason) ? reason : "其他";
+            stats.reasons.computeIfAbsent(key, k -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * 汇总结果，每个接口一行，按接口名排序
+     */
+    List<Map<String, Object>> summary() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        new ConcurrentSkipListMap<>(endpoints).forEach((name, stats) -> {
+            Histogram histogram = stats.histogram.copy();
+            long count = histogram.getTotalCount();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", name);
+            row.put("count", count);
+            row.put("errors", stats.errors.sum());
+            row.put("throughput", round(count / seconds));
+            row.put("mean", millis(histogram.getMean()));
+            row.put("p50", millis(histogram.getValueAtPercentile(50)));
+            row.put("p90", millis(histogram.getValueAtPercentile(90)));
+            row.put("p99", millis(histogram.getValueAtPercentile(99)));
+            row.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+            row.put("max", millis(histogram.getMaxValue()));
+            Map<String, Long> reasons = new LinkedHashMap<>();
+            stats.reasons.forEach((reason, adder) -> reasons.put(reason, adder.sum()));
+            row.put("errorReasons", reasons);
+            rows.add(row);
+        });
+        return rows;
+    }
+
+    private Endpoint endpoint(String name) {
+        return endpoints.computeIfAbsent(name, key -> new Endpoint());
+    }
+
+    private static double millis(double micros) {
+        return round(micros / 1000);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static final class Endpoint {
+
+        final Histogram histogram = new ConcurrentHistogram(MAX_MICROS, 3);
+
+        final LongAdder errors = new LongAdder();
+
+        final Map<String, LongAdder> reasons = new ConcurrentHashMap<>();
+    }
+}
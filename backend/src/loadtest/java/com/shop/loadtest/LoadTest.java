@@ -0,0 +1,231 @@
+package com.shop.loadtest;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 压测客户端：固定并发的闭环模型，每个并发用户循环执行按权重抽取的场景
+ * <p>
+ * 用户和商品取自 {@link DataSeeder} 造出的范围；每个并发用户只使用自己那一份用户ID，
+ * 同一个用户的购物车不会被多个并发同时操作。结束后按接口输出吞吐量和耗时分位数，并写入 JSON 报告。
+ * <p>
+ * 主要参数（括号内为默认值）：
+ * <ul>
+ *     <li>--base-url（http://localhost:8088，即 docker-compose 中的后端）</li>
+ *     <li>--scenario：mixed、browse、cart、checkout、flash-sale（mixed）</li>
+ *     <li>--mix：mixed 场景的权重（browse=70,cart=20,checkout=8,flash-sale=2）</li>
+ *     <li>--concurrency（50）、--duration（60s）、--warmup（10s）、--think-time（0ms）、--timeout（10s）</li>
+ *     <li>--users、--products、--hot-products：与造数参数一致（1000000、1000000、10）</li>
+ *     <li>--virtual-threads：在 Java 21 上用虚拟线程承载并发用户（false）</li>
+ *     <li>--report（target/loadtest-report.json）</li>
+ * </ul>
+ */
+public final class LoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final String DEFAULT_MIX = "browse=70,cart=20,checkout=8,flash-sale=2";
+
+    private final Options options;
+
+    private final LatencyStats stats = new LatencyStats();
+
+    private final Map<Scenario, LongAdder> completed = new EnumMap<>(Scenario.class);
+
+    private final Map<Scenario, LongAdder> failed = new EnumMap<>(Scenario.class);
+
+    private volatile boolean running = true;
+
+    private LoadTest(Options options) {
+        this.options = options;
+        for (Scenario scenario : Scenario.values()) {
+            completed.put(scenario, new LongAdder());
+            failed.put(scenario, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(new Options(args)).run();
+    }
+
+    private void run() throws InterruptedException, IOException {
+        String baseUrl = options.getString("base-url", "http://localhost:8088");
+        int concurrency = options.getInt("concurrency", 50);
+        Duration warmup = options.getDuration("warmup", Duration.ofSeconds(10));
+        Duration duration = options.getDuration("duration", Duration.ofSeconds(60));
+        Duration thinkTime = options.getDuration("think-time", Duration.ZERO);
+        Duration timeout = options.getDuration("timeout", Duration.ofSeconds(10));
+        long users = options.getLong("users", 1_000_000);
+        Scenario[] wheel = scenarioWheel(options.getString("scenario", "mixed"), options.getString("mix", DEFAULT_MIX));
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+        ShopClient client = new ShopClient(httpClient, baseUrl, timeout, stats);
+        Scenario.Catalog catalog = new Scenario.Catalog(options.getLong("products", 1_000_000),
+                options.getInt("hot-products", 10), categoryIds(client));
+
+        logger.info("开始压测: baseUrl={}, concurrency={}, warmup={}, duration={}", baseUrl, concurrency, warmup, duration);
+        ExecutorService executor = workers(concurrency, options.getBoolean("virtual-threads", false));
+        long partition = Math.max(1, users / concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            int worker = i;
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running) {
+                    Scenario scenario = wheel[random.nextInt(wheel.length)];
+                    long userId = DataSeeder.ID_BASE + 1 + (worker + concurrency * random.nextLong(partition)) % users;
+                    execute(scenario, client, catalog, userId);
+                    if (!thinkTime.isZero()) {
+                        sleep(thinkTime);
+                    }
+                }
+            });
+        }
+
+        sleep(warmup);
+        stats.start();
+        logger.info("预热结束，开始统计");
+        sleep(duration);
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(timeout.toMillis() * 2, TimeUnit.MILLISECONDS)) {
+            executor.shutdownNow();
+        }
+
+        report(Path.of(options.getString("report", "target/loadtest-report.json")), baseUrl, concurrency, duration);
+    }
+
+    private void execute(Scenario scenario, ShopClient client, Scenario.Catalog catalog, long userId) {
+        try {
+            scenario.run(client, catalog, userId);
+            if (stats.isRecording()) {
+                completed.get(scenario).increment();
+            }
+        } catch (ShopClient.RequestFailedException e) {
+            if (stats.isRecording()) {
+                failed.get(scenario).increment();
+            }
+        } catch (RuntimeException e) {
+            // 响应结构不符合预期等，计为场景失败，不中断该并发用户
+            logger.warn("场景执行异常: scenario={}, userId={}", scenario.getName(), userId, e);
+            if (stats.isRecording()) {
+                failed.get(scenario).increment();
+            }
+        }
+    }
+
+    /**
+     * 按权重展开成 100 格的转盘，抽样时随机取一格
+     */
+    private static Scenario[] scenarioWheel(String scenario, String mix) {
+        if (!"mixed".equals(scenario)) {
+            return new Scenario[]{Scenario.of(scenario)};
+        }
+        Map<Scenario, Integer> weights = new LinkedHashMap<>();
+        int total = 0;
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            int weight = Integer.parseInt(pair[1].trim());
+            weights.put(Scenario.of(pair[0].trim()), weight);
+            total += weight;
+        }
+        List<Scenario> slots = new ArrayList<>();
+        for (Map.Entry<Scenario, Integer> entry : weights.entrySet()) {
+            long count = Math.round(entry.getValue() * 100.0 / total);
+            for (int i = 0; i < count; i++) {
+                slots.add(entry.getKey());
+            }
+        }
+        return slots.toArray(new Scenario[0]);
+    }
+
+    private static List<Long> categoryIds(ShopClient client) {
+        List<Long> ids = new ArrayList<>();
+        JSONArray categories = (JSONArray) client.get("GET /api/category/list", "/api/category/list");
+        for (int i = 0; i < categories.size(); i++) {
+            ids.add(categories.getJSONObject(i).getLong("id"));
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("没有可用的商品分类");
+        }
+        return ids;
+    }
+
+    private static ExecutorService workers(int concurrency, boolean virtualThreads) {
+        if (virtualThreads) {
+            try {
+                // 按 Java 17 编译，运行在 Java 21 上时才有虚拟线程
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                logger.warn("当前 JDK 不支持虚拟线程，改用平台线程");
+            }
+        }
+        return Executors.newFixedThreadPool(concurrency);
+    }
+
+    private void report(Path path, String baseUrl, int concurrency, Duration duration) throws IOException {
+        List<Map<String, Object>> endpoints = stats.summary();
+
+        StringBuilder table = new StringBuilder(System.lineSeparator());
+        table.append(String.format("%-32s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)"));
+        for (Map<String, Object> row : endpoints) {
+            table.append(String.format("%-32s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    row.get("endpoint"), row.get("count"), row.get("errors"), row.get("throughput"),
+                    row.get("p50"), row.get("p90"), row.get("p99"), row.get("p999"), row.get("max")));
+        }
+        Map<String, Object> scenarios = new LinkedHashMap<>();
+        for (Scenario scenario : Scenario.values()) {
+            long ok = completed.get(scenario).sum();
+            long ko = failed.get(scenario).sum();
+            if (ok + ko > 0) {
+                scenarios.put(scenario.getName(), Map.of("completed", ok, "failed", ko));
+                table.append(String.format("scenario %-12s completed=%d failed=%d%n", scenario.getName(), ok, ko));
+            }
+        }
+        System.out.print(table);
+
+        JSONObject report = new JSONObject();
+        report.put("baseUrl", baseUrl);
+        report.put("concurrency", concurrency);
+        report.put("durationSeconds", duration.toSeconds());
+        report.put("scenarios", scenarios);
+        report.put("endpoints", endpoints);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.writeString(path, JSON.toJSONString(report, JSONWriter.Feature.PrettyFormat), StandardCharsets.UTF_8);
+        logger.info("压测报告已写入 {}", path.toAbsolutePath());
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
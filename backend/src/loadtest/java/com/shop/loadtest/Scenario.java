@@ -0,0 +1,119 @@
+package com.shop.loadtest;
+
+import com.alibaba.fastjson2.JSONObject;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 压测场景，每次执行模拟一个用户完成一轮操作
+ */
+enum Scenario {
+
+    /**
+     * 逛：首页列表 -> 分类游标翻页 -> 商品详情页
+     */
+    BROWSE("browse") {
+        @Override
+        void run(ShopClient client, Catalog catalog, long userId) {
+            client.get("GET /api/product/page", "/api/product/page?pageNum=1&pageSize=20&status=1");
+            client.get("GET /api/product/scroll",
+                    "/api/product/scroll?size=20&status=1&categoryId=" + catalog.randomCategory());
+            client.get("GET /api/product/{id}/view", "/api/product/" + catalog.randomProduct() + "/view");
+        }
+    },
+
+    /**
+     * 加购：商品详情页 -> 加入购物车 -> 购物车页
+     */
+    CART("cart") {
+        @Override
+        void run(ShopClient client, Catalog catalog, long userId) {
+            long productId = catalog.randomProduct();
+            client.get("GET /api/product/{id}/view", "/api/product/" + productId + "/view");
+            client.post("POST /api/cart/add", "/api/cart/add",
+                    Map.of("userId", userId, "productId", productId, "quantity", 1));
+            client.get("GET /api/cart/view/{userId}", "/api/cart/view/" + userId);
+        }
+    },
+
+    /**
+     * 下单：加购并选中 -> 创建订单 -> 支付
+     */
+    CHECKOUT("checkout") {
+        @Override
+        void run(ShopClient client, Catalog catalog, long userId) {
+            addAndCheck(client, userId, catalog.randomProduct());
+            JSONObject order = (JSONObject) client.post("POST /api/order/create", "/api/order/create", receiver(userId));
+            client.put("PUT /api/order/pay", "/api/order/pay", Map.of("userId", userId, "orderId", order.getLong("id")));
+        }
+    },
+
+    /**
+     * 秒杀：大量用户抢购少数热点商品
+     */
+    FLASH_SALE("flash-sale") {
+        @Override
+        void run(ShopClient client, Catalog catalog, long userId) {
+            long productId = catalog.randomHotProduct();
+            client.get("GET /api/product/{id}", "/api/product/" + productId);
+            addAndCheck(client, userId, productId);
+            client.post("POST /api/order/create", "/api/order/create", receiver(userId));
+        }
+    };
+
+    private final String name;
+
+    Scenario(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    abstract void run(ShopClient client, Catalog catalog, long userId);
+
+    static Scenario of(String name) {
+        for (Scenario scenario : values()) {
+            if (scenario.name.equals(name)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("未知场景: " + name);
+    }
+
+    /**
+     * 已在购物车中的商品加购后保持原选中状态，这里显式选中
+     */
+    private static void addAndCheck(ShopClient client, long userId, long productId) {
+        JSONObject cart = (JSONObject) client.post("POST /api/cart/add", "/api/cart/add",
+                Map.of("userId", userId, "productId", productId, "quantity", 1));
+        client.put("PUT /api/cart/check", "/api/cart/check",
+                Map.of("userId", userId, "cartId", cart.getLong("id"), "checked", 1));
+    }
+
+    private static Map<String, Object> receiver(long userId) {
+        return Map.of("userId", userId, "receiverName", "压测收货人", "receiverPhone", "13900000000",
+                "receiverAddress", "压测地址", "remark", "loadtest");
+    }
+
+    /**
+     * 造数数据的取值范围
+     */
+    record Catalog(long products, int hotProducts, List<Long> categoryIds) {
+
+        long randomProduct() {
+            return DataSeeder.ID_BASE + ThreadLocalRandom.current().nextLong(products) + 1;
+        }
+
+        long randomHotProduct() {
+            return DataSeeder.ID_BASE + ThreadLocalRandom.current().nextInt(hotProducts) + 1;
+        }
+
+        long randomCategory() {
+            return categoryIds.get(ThreadLocalRandom.current().nextInt(categoryIds.size()));
+        }
+    }
+}
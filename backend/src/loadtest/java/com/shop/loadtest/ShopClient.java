@@ -0,0 +1,99 @@
+package com.shop.loadtest;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 调用后端接口并记录耗时
+ * <p>
+ * 接口返回 HTTP 非 2xx 或 Result.code 不为 200 都算失败，抛出 {@link RequestFailedException}，
+ * 场景中的后续步骤随之中止。
+ */
+final class ShopClient {
+
+    private final HttpClient httpClient;
+
+    private final String baseUrl;
+
+    private final Duration timeout;
+
+    private final LatencyStats stats;
+
+    ShopClient(HttpClient httpClient, String baseUrl, Duration timeout, LatencyStats stats) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.timeout = timeout;
+        this.stats = stats;
+    }
+
+    /**
+     * @param endpoint 统计用的接口名，路径参数用占位符表示，如 GET /api/product/{id}
+     */
+    Object get(String endpoint, String path) {
+        return send(endpoint, request(path).GET());
+    }
+
+    Object post(String endpoint, String path, Map<String, Object> body) {
+        return send(endpoint, request(path).POST(json(body)));
+    }
+
+    Object put(String endpoint, String path, Map<String, Object> body) {
+        return send(endpoint, request(path).PUT(json(body)));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json");
+    }
+
+    private static HttpRequest.BodyPublisher json(Map<String, Object> body) {
+        return HttpRequest.BodyPublishers.ofString(JSON.toJSONString(body));
+    }
+
+    private Object send(String endpoint, HttpRequest.Builder builder) {
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (HttpTimeoutException e) {
+            throw fail(endpoint, "超时");
+        } catch (IOException e) {
+            throw fail(endpoint, e.getClass().getSimpleName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestFailedException(endpoint + " 被中断");
+        }
+        long elapsed = System.nanoTime() - start;
+        if (response.statusCode() / 100 != 2) {
+            throw fail(endpoint, "HTTP " + response.statusCode());
+        }
+        JSONObject result = JSON.parseObject(response.body());
+        if (result.getIntValue("code") != 200) {
+            throw fail(endpoint, String.valueOf(result.getString("message")));
+        }
+        stats.success(endpoint, elapsed);
+        return result.get("data");
+    }
+
+    private RequestFailedException fail(String endpoint, String reason) {
+        stats.failure(endpoint, reason);
+        return new RequestFailedException(endpoint + ": " + reason);
+    }
+
+    static final class RequestFailedException extends RuntimeException {
+
+        RequestFailedException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.shop.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.shop.datasource.DataSourceRoute;
+import com.shop.entity.Cart;
+import com.shop.mapper.CartMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 购物车本地缓存（默认关闭）
+ * <p>
+ * 按用户缓存整个购物车，读取直接返回内存中的数据。修改数量、选中状态只改内存并登记为待写回，
+ * 同一购物车项在写回前的多次修改合并为一次 UPDATE；新增、删除购物车项仍同步写库（需要ID和唯一约束）。
+ * 缓存未命中时从购物车表加载，并叠加尚未写回的修改。
+ * <p>
+ * 缓存只在本实例有效，多实例部署时需按用户会话保持（同一用户的请求落到同一实例）。
+ */
+@Component
+public class CartCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartCache.class);
+
+    @Autowired
+    private CartMapper cartMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${shop.cart.cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${shop.cart.cache.maximum-size:100000}")
+    private long maximumSize;
+
+    @Value("${shop.cart.cache.expire-after-access:30m}")
+    private Duration expireAfterAccess;
+
+    @Value("${shop.cart.cache.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private LoadingCache<Long, UserCart> cache;
+
+    /**
+     * 待写回的修改：购物车项ID -> 最新的数量和选中状态
+     */
+    private final Map<Long, Cart> dirty = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build(this::load);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "cart");
+        Gauge.builder("shop.cart.dirty", dirty, Map::size)
+                .description("等待写回数据库的购物车项数")
+                .register(meterRegistry);
+        logger.info("购物车缓存已启用: maximumSize={}, expireAfterAccess={}", maximumSize, expireAfterAccess);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 获取用户购物车，未命中时从数据库加载；读写前需持有返回对象的锁
+     */
+    public UserCart get(Long userId) {
+        return cache.get(userId);
+    }
+
+    /**
+     * 丢弃用户的缓存，下次访问重新加载（未写回的修改不受影响）
+     */
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    /**
+     * 登记一次修改，等待写回
+     */
+    public void markDirty(Cart item) {
+        Cart pending = new Cart();
+        pending.setId(item.getId());
+        pending.setQuantity(item.getQuantity());
+        pending.setChecked(item.getChecked());
+        dirty.put(item.getId(), pending);
+    }
+
+    /**
+     * 购物车项已删除，不再写回
+     */
+    public void discard(Collection<Long> cartIds) {
+        for (Long cartId : cartIds) {
+            dirty.remove(cartId);
+        }
+    }
+
+    /**
+     * 定时把合并后的修改写回数据库
+     */
+    @Scheduled(fixedDelayString = "${shop.cart.cache.flush-interval:1000}")
+    public void flush() {
+        if (!enabled || dirty.isEmpty()) {
+            return;
+        }
+        List<Cart> batch = new ArrayList<>(flushBatchSize);
+        Iterator<Cart> iterator = dirty.values().iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            if (batch.size() >= flushBatchSize || !iterator.hasNext()) {
+                writeBack(batch);
+                batch = new ArrayList<>(flushBatchSize);
+            }
+        }
+    }
+
+    private void writeBack(List<Cart> batch) {
+        try {
+            cartMapper.batchUpdateItems(batch);
+            // 只移除已写回的版本，写回期间的新修改留到下一轮
+            for (Cart item : batch) {
+                dirty.remove(item.getId(), item);
+            }
+            logger.debug("购物车修改已写回: count={}", batch.size());
+        } catch (RuntimeException e) {
+            logger.error("购物车修改写回失败，稍后重试: count={}", batch.size(), e);
+        }
+    }
+
+    private UserCart load(Long userId) {
+        LambdaQueryWrapper<Cart> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(Cart::getUserId, userId)
+                .orderByDesc(Cart::getCreateTime);
+        // 缓存的购物车会被写回数据库，只能从主库加载
+        List<Cart> items = DataSourceRoute.onPrimary(() -> cartMapper.selectList(wrapper));
+        for (Cart item : items) {
+            Cart pending = dirty.get(item.getId());
+            if (pending != null) {
+                item.setQuantity(pending.getQuantity());
+                item.setChecked(pending.getChecked());
+            }
+        }
+        return new UserCart(items);
+    }
+
+    /**
+     * 单个用户的购物车，按加入时间倒序；非线程安全，调用方先 lock
+     */
+    public static final class UserCart {
+
+        private final List<Cart> items;
+
+        /**
+         * 持锁期间可能同步写库，用 ReentrantLock 避免虚拟线程占住载体线程
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private UserCart(List<Cart> items) {
+            this.items = items;
+        }
+
+        public void lock() {
+            lock.lock();
+        }
+
+        public void unlock() {
+            lock.unlock();
+        }
+
+        /**
+         * 购物车项的副本，调用方可以自由填充商品信息
+         */
+        public List<Cart> snapshot() {
+            List<Cart> copies = new ArrayList<>(items.size());
+            for (Cart item : items) {
+                copies.add(copy(item));
+            }
+            return copies;
+        }
+
+        public Cart findById(Long cartId) {
+            for (Cart item : items) {
+                if (item.getId().equals(cartId)) {
+                    return item;
+                }
+            }
+            return null;
+        }
+
+        public Cart findByProduct(Long productId) {
+            for (Cart item : items) {
+                if (item.getProductId().equals(productId)) {
+                    return item;
+                }
+            }
+            return null;
+        }
+
+        public List<Cart> items() {
+            return items;
+        }
+
+        /**
+         * 加入已写入数据库的新购物车项
+         */
+        public void add(Cart item) {
+            Cart copy = copy(item);
+            if (copy.getCreateTime() == null) {
+                copy.setCreateTime(LocalDateTime.now());
+            }
+            items.add(0, copy);
+        }
+
+        public void removeIf(Collection<Long> cartIds) {
+            items.removeIf(item -> cartIds.contains(item.getId()));
+        }
+
+        public void clear() {
+            items.clear();
+        }
+
+        public static Cart copy(Cart item) {
+            Cart copy = new Cart();
+            copy.setId(item.getId());
+            copy.setUserId(item.getUserId());
+            copy.setProductId(item.getProductId());
+            copy.setQuantity(item.getQuantity());
+            copy.setChecked(item.getChecked());
+            copy.setCreateTime(item.getCreateTime());
+            copy.setUpdateTime(item.getUpdateTime());
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.shop.cache;
+
+import com.shop.entity.Category;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分类快照
+ * <p>
+ * 构建后不可变：启用的分类按 sort 预先排好序，另有全部分类的 ID 索引。
+ * 分类变更时整体重建并原子替换，读取方无需加锁。
+ */
+public final class CategorySnapshot {
+
+    private static final Comparator<Category> SORT_ORDER = Comparator
+            .comparing(Category::getSort, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Category::getId);
+
+    private final List<Category> enabledCategories;
+
+    private final Map<Long, Category> categoryMap;
+
+    private CategorySnapshot(List<Category> enabledCategories, Map<Long, Category> categoryMap) {
+        this.enabledCategories = enabledCategories;
+        this.categoryMap = categoryMap;
+    }
+
+    /**
+     * 由全部（未删除的）分类构建快照
+     */
+    public static CategorySnapshot of(List<Category> categories) {
+        Map<Long, Category> categoryMap = new HashMap<>(categories.size() * 2);
+        for (Category category : categories) {
+            categoryMap.put(category.getId(), category);
+        }
+        List<Category> enabled = categories.stream()
+                .filter(category -> category.getStatus() != null && category.getStatus() == 1)
+                .sorted(SORT_ORDER)
+                .toList();
+        return new CategorySnapshot(enabled, Collections.unmodifiableMap(categoryMap));
+    }
+
+    /**
+     * 启用的分类（已按 sort 排序，不可修改）
+     */
+    public List<Category> getEnabledCategories() {
+        return enabledCategories;
+    }
+
+    /**
+     * 按ID查找分类，不存在返回null
+     */
+    public Category get(Long id) {
+        return categoryMap.get(id);
+    }
+}
@@ -0,0 +1,118 @@
+package com.shop.cache;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.shop.datasource.DataSourceRoute;
+import com.shop.entity.Product;
+import com.shop.mapper.ProductMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 商品本地缓存
+ * <p>
+ * 基于 Caffeine（W-TinyLFU 淘汰 + 写入后过期），缓存 商品ID -> 商品。
+ * 缓存中的对象为共享实例，调用方不应修改其字段。回源固定查主库，失效后不会从延迟的从库上读回旧值。
+ */
+@Component
+public class ProductCache {
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${shop.cache.product.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${shop.cache.product.expire-after-write:60s}")
+    private Duration expireAfterWrite;
+
+    private LoadingCache<Long, Product> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Product load(Long id) {
+                        return DataSourceRoute.onPrimary(() -> productMapper.selectById(id));
+                    }
+
+                    @Override
+                    public Map<Long, Product> loadAll(Set<? extends Long> ids) {
+                        List<Product> products = DataSourceRoute.onPrimary(() -> productMapper.selectBatchIds(ids));
+                        Map<Long, Product> result = new HashMap<>(products.size() * 2);
+                        for (Product product : products) {
+                            result.put(product.getId(), product);
+                        }
+                        return result;
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "product");
+    }
+
+    /**
+     * 获取单个商品，未命中时回源数据库；商品不存在返回null（不缓存）
+     */
+    public Product get(Long id) {
+        return cache.get(id);
+    }
+
+    /**
+     * 批量获取商品，未命中的部分通过一次 IN 查询回源
+     */
+    public Map<Long, Product> getAll(Collection<Long> ids) {
+        return cache.getAll(ids);
+    }
+
+    /**
+     * 使缓存失效；在事务中调用时，提交后会再失效一次，避免并发读把旧值重新载入
+     */
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+
+    /**
+     * 缓存统计：命中/未命中/淘汰次数等
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("loadCount", stats.loadCount());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+}
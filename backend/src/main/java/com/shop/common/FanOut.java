@@ -0,0 +1,81 @@
+package com.shop.common;
+
+import com.shop.datasource.DataSourceRoute;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 并发查询
+ * <p>
+ * 组合接口中互不依赖的查询提交到这里并发执行，调用方在等待期间可以继续做本地计算。
+ * 虚拟线程模式下每个任务一个虚拟线程；否则使用有界线程池，线程用满时由调用线程直接执行，退化为串行而不是排队。
+ */
+@Component
+public class FanOut {
+
+    private final Executor executor;
+
+    private final ThreadPoolExecutor pool;
+
+    public FanOut(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                  @Value("${shop.fan-out.threads:16}") int threads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor virtual = new SimpleAsyncTaskExecutor("fan-out-");
+            virtual.setVirtualThreads(true);
+            this.executor = virtual;
+            this.pool = null;
+        } else {
+            AtomicInteger index = new AtomicInteger();
+            this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "fan-out-" + index.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            this.pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 提交一个查询，沿用调用线程的读写路由偏好
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> query) {
+        DataSourceRoute.Target route = DataSourceRoute.current();
+        return CompletableFuture.supplyAsync(() -> DataSourceRoute.with(route, query), executor);
+    }
+
+    /**
+     * 等待查询结果，查询抛出的异常（如 BusinessException）原样抛出
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
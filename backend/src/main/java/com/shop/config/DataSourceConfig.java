@@ -0,0 +1,192 @@
+package com.shop.config;
+
+import com.shop.datasource.BoundedDataSource;
+import com.shop.datasource.ReadWriteRoutingDataSource;
+import com.shop.datasource.ReadWriteRoutingFilter;
+import com.shop.datasource.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据源配置
+ * <p>
+ * 虚拟线程模式（spring.threads.virtual.enabled）下默认给数据源加一层信号量限流，见 {@link BoundedDataSource}。
+ * 开启读写分离（shop.datasource.routing.enabled）时由这里创建主库和从库连接池，见 {@link ReadWriteRoutingDataSource}。
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceConfig.class);
+
+    /**
+     * 包装 Spring Boot 创建的连接池，许可数取连接池大小
+     */
+    @Bean
+    @ConditionalOnProperty(name = "shop.datasource.bounded.enabled", havingValue = "true")
+    public static BeanPostProcessor boundedDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikari)) {
+                    return bean;
+                }
+                return bounded(hikari, environment);
+            }
+        };
+    }
+
+    /**
+     * 限流排队指标；读写分离时按连接池分别统计
+     */
+    @Bean
+    @ConditionalOnProperty(name = "shop.datasource.bounded.enabled", havingValue = "true")
+    public MeterBinder boundedDataSourceMetrics(DataSource dataSource) {
+        return registry -> {
+            Map<String, DataSource> pools = new LinkedHashMap<>();
+            if (dataSource instanceof LazyConnectionDataSourceProxy proxy
+                    && proxy.getTargetDataSource() instanceof ReadWriteRoutingDataSource routing) {
+                pools.put(ReadWriteRoutingDataSource.PRIMARY, routing.getResolvedDefaultDataSource());
+                pools.putAll(routing.getReplicas());
+            } else {
+                pools.put(ReadWriteRoutingDataSource.PRIMARY, dataSource);
+            }
+            pools.forEach((name, pool) -> {
+                if (pool instanceof BoundedDataSource bounded) {
+                    Gauge.builder("shop.datasource.waiting", bounded, BoundedDataSource::getWaitingCount)
+                            .tag("pool", name)
+                            .description("排队等待数据库连接的线程数")
+                            .register(registry);
+                }
+            });
+        };
+    }
+
+    /**
+     * 读写分离的主从连接池，连接池参数都取 spring.datasource.hikari；不作为注入候选，只通过下面的代理使用
+     */
+    @Bean(autowireCandidate = false)
+    @ConditionalOnProperty(name = "shop.datasource.routing.enabled", havingValue = "true")
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(DataSourceProperties properties, Environment environment,
+                                                                 MeterRegistry meterRegistry) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = pool(properties, binder, meterRegistry, properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword());
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<Replica> replicaList = binder.bind("shop.datasource.routing.replicas", Bindable.listOf(Replica.class))
+                .orElse(List.of());
+        for (Replica replica : replicaList) {
+            String name = replica.getName() != null ? replica.getName() : "replica-" + (replicas.size() + 1);
+            HikariDataSource pool = pool(properties, binder, meterRegistry, replica.getUrl(),
+                    replica.getUsername() != null ? replica.getUsername() : properties.determineUsername(),
+                    replica.getPassword() != null ? replica.getPassword() : properties.determinePassword());
+            pool.setPoolName(primary.getPoolName() + "-" + name);
+            // 误把写语句路由到从库时直接报错，而不是写进从库
+            pool.setReadOnly(true);
+            replicas.put(name, bounded(pool, environment));
+        }
+        if (replicas.isEmpty()) {
+            logger.warn("已开启读写分离但未配置从库（shop.datasource.routing.replicas），全部走主库");
+        }
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(
+                bounded(primary, environment), replicas, meterRegistry);
+        routing.afterPropertiesSet();
+        logger.info("读写分离已开启: replicas={}", replicas.keySet());
+        return routing;
+    }
+
+    /**
+     * 应用使用的数据源：延迟到执行第一条 SQL 时才按路由取物理连接。
+     * 声明为 @Primary，按单一数据源条件装配的自动配置（MyBatis-Plus 等）才能生效
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "shop.datasource.routing.enabled", havingValue = "true")
+    public DataSource dataSource(DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(
+                readWriteRoutingDataSource(properties, environment, meterRegistry));
+        // 显式给出连接默认属性，避免启动时为探测默认值去取连接
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        return proxy;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shop.datasource.routing.enabled", havingValue = "true")
+    public ReplicaLagMonitor replicaLagMonitor(DataSourceProperties properties, Environment environment,
+                                               MeterRegistry meterRegistry) {
+        Duration maxLag = environment.getProperty("shop.datasource.routing.max-lag", Duration.class, Duration.ofSeconds(3));
+        return new ReplicaLagMonitor(readWriteRoutingDataSource(properties, environment, meterRegistry),
+                maxLag, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shop.datasource.routing.enabled", havingValue = "true")
+    public ReadWriteRoutingFilter readWriteRoutingFilter(Environment environment) {
+        return new ReadWriteRoutingFilter(environment.getProperty("shop.datasource.routing.sticky-duration",
+                Duration.class, Duration.ofSeconds(5)));
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Binder binder, MeterRegistry meterRegistry,
+                                         String url, String username, String password) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        // 不是容器中的 DataSource bean，Spring Boot 不会自动注册连接池指标
+        pool.setMetricRegistry(meterRegistry);
+        return pool;
+    }
+
+    private static DataSource bounded(HikariDataSource hikari, Environment environment) {
+        if (!environment.getProperty("shop.datasource.bounded.enabled", Boolean.class, false)) {
+            return hikari;
+        }
+        int maxConcurrency = environment.getProperty("shop.datasource.bounded.max-concurrency",
+                Integer.class, hikari.getMaximumPoolSize());
+        long acquireTimeout = environment.getProperty("shop.datasource.bounded.acquire-timeout",
+                Long.class, hikari.getConnectionTimeout());
+        logger.info("数据源已启用限流: pool={}, maxConcurrency={}, acquireTimeout={}ms",
+                hikari.getPoolName(), maxConcurrency, acquireTimeout);
+        return new BoundedDataSource(hikari, maxConcurrency, acquireTimeout);
+    }
+
+    /**
+     * 从库连接配置，名称缺省为 replica-序号，用户名密码缺省时与主库相同
+     */
+    @Data
+    public static class Replica {
+
+        private String name;
+
+        private String url;
+
+        private String username;
+
+        private String password;
+    }
+}
@@ -2,7 +2,12 @@ package com.shop.config;
 
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.DynamicTableNameInnerInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.shop.metrics.SqlMetricsInterceptor;
+import com.shop.sharding.OrderShardRouter;
+import com.shop.sharding.OrderShardTableNameHandler;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -13,15 +18,27 @@ import org.springframework.context.annotation.Configuration;
 public class MybatisPlusConfig {
 
     /**
-     * 分页插件
+     * 分页插件；开启订单分表时加上表名改写插件
      */
     @Bean
-    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+    public MybatisPlusInterceptor mybatisPlusInterceptor(OrderShardRouter orderShardRouter) {
         MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+        // 表名改写须在分页插件之前，分页的 COUNT 语句才会用改写后的表名
+        if (orderShardRouter.isEnabled()) {
+            interceptor.addInnerInterceptor(new DynamicTableNameInnerInterceptor(new OrderShardTableNameHandler()));
+        }
         // 添加分页插件
         PaginationInnerInterceptor paginationInterceptor = new PaginationInnerInterceptor(DbType.MYSQL);
         paginationInterceptor.setMaxLimit(500L);
         interceptor.addInnerInterceptor(paginationInterceptor);
         return interceptor;
     }
+
+    /**
+     * SQL 耗时统计插件
+     */
+    @Bean
+    public SqlMetricsInterceptor sqlMetricsInterceptor(MeterRegistry meterRegistry) {
+        return new SqlMetricsInterceptor(meterRegistry);
+    }
 }
@@ -34,6 +34,15 @@ public class CartController {
         return Result.success(cartList);
     }
 
+    /**
+     * 获取购物车页数据（列表 + 合计）
+     */
+    @GetMapping("/view/{userId}")
+    public Result<Map<String, Object>> getCartView(@PathVariable Long userId) {
+        logger.info("获取购物车页数据: userId={}", userId);
+        return Result.success(cartService.getCartView(userId));
+    }
+
     /**
      * 添加商品到购物车
      */
@@ -1,6 +1,7 @@
 package com.shop.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.shop.common.CursorPage;
 import com.shop.common.Result;
 import com.shop.entity.Order;
 import com.shop.service.OrderService;
@@ -47,9 +48,10 @@ public class OrderController {
             @PathVariable Long userId,
             @RequestParam(required = false) Integer status,
             @RequestParam(defaultValue = "1") Integer pageNum,
-            @RequestParam(defaultValue = "10") Integer pageSize) {
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(defaultValue = "true") Boolean withItems) {
         logger.info("查询用户订单: userId={}, status={}", userId, status);
-        IPage<Order> orders = orderService.getUserOrders(userId, status, pageNum, pageSize);
+        IPage<Order> orders = orderService.getUserOrders(userId, status, pageNum, pageSize, withItems);
         return Result.success(orders);
     }
 
@@ -60,12 +62,42 @@ public class OrderController {
     public Result<IPage<Order>> getAllOrders(
             @RequestParam(required = false) Integer status,
             @RequestParam(defaultValue = "1") Integer pageNum,
-            @RequestParam(defaultValue = "10") Integer pageSize) {
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(defaultValue = "true") Boolean withItems) {
         logger.info("查询所有订单: status={}", status);
-        IPage<Order> orders = orderService.getAllOrders(status, pageNum, pageSize);
+        IPage<Order> orders = orderService.getAllOrders(status, pageNum, pageSize, withItems);
         return Result.success(orders);
     }
 
+    /**
+     * 游标分页查询用户订单（不统计总数，深翻页不变慢）
+     */
+    @GetMapping("/user/{userId}/scroll")
+    public Result<CursorPage<Order>> scrollUserOrders(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(defaultValue = "true") Boolean withItems,
+            @RequestParam(defaultValue = "false") Boolean withTotal) {
+        logger.info("游标查询用户订单: userId={}, status={}, cursor={}", userId, status, cursor);
+        return Result.success(orderService.scrollUserOrders(userId, status, cursor, size, withItems, withTotal));
+    }
+
+    /**
+     * 游标分页查询所有订单（管理员）
+     */
+    @GetMapping("/list/scroll")
+    public Result<CursorPage<Order>> scrollAllOrders(
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(defaultValue = "true") Boolean withItems,
+            @RequestParam(defaultValue = "false") Boolean withTotal) {
+        logger.info("游标查询所有订单: status={}, cursor={}", status, cursor);
+        return Result.success(orderService.scrollAllOrders(status, cursor, size, withItems, withTotal));
+    }
+
     /**
      * 获取订单详情
      */
@@ -1,6 +1,7 @@
 package com.shop.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.shop.common.CursorPage;
 import com.shop.common.Result;
 import com.shop.entity.Product;
 import com.shop.service.ProductService;
@@ -9,6 +10,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 商品控制器
  */
@@ -37,6 +41,57 @@ public class ProductController {
         return Result.success(result);
     }
 
+    /**
+     * 游标分页查询商品列表（不统计总数，深翻页不变慢）
+     */
+    @GetMapping("/scroll")
+    public Result<CursorPage<Product>> scrollProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(defaultValue = "false") Boolean withTotal) {
+        logger.info("游标查询商品: cursor={}, size={}, name={}, categoryId={}, status={}",
+                cursor, size, name, categoryId, status);
+        return Result.success(productService.scrollProducts(cursor, size, name, categoryId, status, withTotal));
+    }
+
+    /**
+     * 搜索商品（名称、描述全文检索，按相关度排序）
+     */
+    @GetMapping("/search")
+    public Result<IPage<Product>> searchProducts(
+            @RequestParam String keyword,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(defaultValue = "1") Integer pageNum,
+            @RequestParam(defaultValue = "10") Integer pageSize) {
+        logger.info("搜索商品: keyword={}, categoryId={}, status={}", keyword, categoryId, status);
+        return Result.success(productService.searchProducts(keyword, categoryId, status, pageNum, pageSize));
+    }
+
+    /**
+     * 热销商品排行（按实时销量）
+     */
+    @GetMapping("/top-sellers")
+    public Result<List<Product>> getTopSellers(@RequestParam(defaultValue = "10") Integer limit) {
+        logger.info("查询热销商品: limit={}", limit);
+        return Result.success(productService.getTopSellers(limit));
+    }
+
+    /**
+     * 时间窗口热销排行（1h、24h、7d，可按分类）
+     */
+    @GetMapping("/ranking")
+    public Result<List<Map<String, Object>>> getRanking(
+            @RequestParam(defaultValue = "24h") String window,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        logger.info("查询热销排行: window={}, categoryId={}, limit={}", window, categoryId, limit);
+        return Result.success(productService.getRanking(window, categoryId, limit));
+    }
+
     /**
      * 获取商品详情
      */
@@ -47,6 +102,16 @@ public class ProductController {
         return Result.success(product);
     }
 
+    /**
+     * 获取商品详情页数据（详情 + 同类热销）
+     */
+    @GetMapping("/{id}/view")
+    public Result<Map<String, Object>> getProductDetailView(@PathVariable Long id,
+                                                           @RequestParam(defaultValue = "6") Integer relatedLimit) {
+        logger.info("获取商品详情页: id={}", id);
+        return Result.success(productService.getProductDetailView(id, relatedLimit));
+    }
+
     /**
      * 添加商品（管理员）
      */
@@ -104,4 +169,12 @@ public class ProductController {
         productService.updateById(product);
         return Result.success("下架成功", null);
     }
+
+    /**
+     * 商品缓存统计（管理员）
+     */
+    @GetMapping("/cache/stats")
+    public Result<Map<String, Object>> getCacheStats() {
+        return Result.success(productService.getCacheStats());
+    }
 }
@@ -0,0 +1,66 @@
+package com.shop.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * 当前线程的读写路由偏好，由 {@link ReadWriteRoutingDataSource} 在取物理连接时读取
+ * <p>
+ * 未指定时只有只读事务走从库。事务中已经取得连接后再修改偏好不影响该事务。
+ */
+public final class DataSourceRoute {
+
+    public enum Target {
+        /**
+         * 强制主库（读己之写、缓存回源）
+         */
+        PRIMARY,
+        /**
+         * 非事务查询也走从库
+         */
+        REPLICA
+    }
+
+    private static final ThreadLocal<Target> CURRENT = new ThreadLocal<>();
+
+    private DataSourceRoute() {
+    }
+
+    /**
+     * 当前偏好，未指定返回null
+     */
+    public static Target current() {
+        return CURRENT.get();
+    }
+
+    public static void set(Target target) {
+        if (target == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(target);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 以指定偏好执行，结束后恢复原偏好
+     */
+    public static <T> T with(Target target, Supplier<T> action) {
+        Target previous = CURRENT.get();
+        set(target);
+        try {
+            return action.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    /**
+     * 在主库上执行；用于结果会被缓存的查询，避免把从库上的旧数据放进缓存
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        return with(Target.PRIMARY, action);
+    }
+}
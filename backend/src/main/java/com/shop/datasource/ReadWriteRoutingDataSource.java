@@ -0,0 +1,125 @@
+package com.shop.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离数据源：写和普通事务走主库，只读事务及偏好从库的查询在可用从库间轮询
+ * <p>
+ * 需要包在 LazyConnectionDataSourceProxy 里使用，事务开始时只拿到代理连接，
+ * 执行第一条 SQL 时才按事务的只读标记和 {@link DataSourceRoute} 选择实际的库。
+ * 从库是否可用由 {@link ReplicaLagMonitor} 按复制延迟维护，全部不可用时回退主库。
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    public static final String PRIMARY = "primary";
+
+    private final Map<String, DataSource> replicas;
+
+    private final Set<String> available = new LinkedHashSet<>();
+
+    /**
+     * 可用从库的不可变快照，路由时无锁读取
+     */
+    private volatile List<String> availableReplicas = List.of();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter primaryRoutes;
+
+    private final Counter replicaRoutes;
+
+    public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, MeterRegistry meterRegistry) {
+        this.replicas = Collections.unmodifiableMap(new LinkedHashMap<>(replicas));
+        Map<Object, Object> targets = new LinkedHashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.primaryRoutes = Counter.builder("shop.datasource.route")
+                .tag("target", PRIMARY)
+                .description("按读写路由取得的物理连接数")
+                .register(meterRegistry);
+        this.replicaRoutes = Counter.builder("shop.datasource.route")
+                .tag("target", "replica")
+                .description("按读写路由取得的物理连接数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 从库名 -> 连接池
+     */
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * 关闭主库和从库的连接池
+     */
+    @Override
+    public void close() {
+        for (DataSource dataSource : getResolvedDataSources().values()) {
+            DataSource target = dataSource instanceof DelegatingDataSource delegating
+                    ? delegating.getTargetDataSource() : dataSource;
+            if (target instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    logger.warn("关闭连接池失败", e);
+                }
+            }
+        }
+    }
+
+    public boolean isAvailable(String replica) {
+        return availableReplicas.contains(replica);
+    }
+
+    /**
+     * 标记从库可用/不可用
+     */
+    public synchronized void setAvailable(String replica, boolean isAvailable) {
+        boolean changed = isAvailable ? available.add(replica) : available.remove(replica);
+        if (changed) {
+            availableReplicas = List.copyOf(available);
+            logger.info("从库{}: {}，当前可用 {}", isAvailable ? "恢复" : "摘除", replica, availableReplicas);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        List<String> candidates = availableReplicas;
+        if (candidates.isEmpty() || !readFromReplica()) {
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+        replicaRoutes.increment();
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    private static boolean readFromReplica() {
+        DataSourceRoute.Target preferred = DataSourceRoute.current();
+        if (preferred == DataSourceRoute.Target.PRIMARY) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+        return preferred == DataSourceRoute.Target.REPLICA;
+    }
+}
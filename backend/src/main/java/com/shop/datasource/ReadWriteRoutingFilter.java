@@ -0,0 +1,76 @@
+package com.shop.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * 按请求设置读写路由偏好
+ * <p>
+ * 查询请求（GET/HEAD）偏好从库；写请求走主库，并下发一个短期 Cookie，
+ * 有效期内该客户端的查询也走主库，保证修改购物车、下单后立即能读到自己的数据。
+ * Cookie 值为到期时间戳，不依赖实例本地状态，多实例部署时同样有效。
+ */
+public class ReadWriteRoutingFilter extends OncePerRequestFilter {
+
+    public static final String STICKY_COOKIE = "shop_rw_primary";
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD");
+
+    private final Duration stickyDuration;
+
+    public ReadWriteRoutingFilter(Duration stickyDuration) {
+        this.stickyDuration = stickyDuration;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        DataSourceRoute.Target target;
+        if (READ_METHODS.contains(request.getMethod())) {
+            target = stickyUntil(request) > now ? DataSourceRoute.Target.PRIMARY : DataSourceRoute.Target.REPLICA;
+        } else {
+            ResponseCookie cookie = ResponseCookie.from(STICKY_COOKIE, Long.toString(now + stickyDuration.toMillis()))
+                    .path("/")
+                    .maxAge(stickyDuration)
+                    .httpOnly(true)
+                    .sameSite("Lax")
+                    .build();
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+            target = DataSourceRoute.Target.PRIMARY;
+        }
+        DataSourceRoute.set(target);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            DataSourceRoute.clear();
+        }
+    }
+
+    private static long stickyUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (STICKY_COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,104 @@
+package com.shop.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 从库复制延迟检查
+ * <p>
+ * 定时在每个从库上执行 SHOW REPLICA STATUS（MySQL 8.0.22 以下回退 SHOW SLAVE STATUS），
+ * 延迟超过上限、复制线程停止或连接失败的从库从路由中摘除，恢复后加回。
+ * 启动时从库均视为不可用，首次检查通过后才开始承接读流量。
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final ReadWriteRoutingDataSource routingDataSource;
+
+    private final long maxLagSeconds;
+
+    /**
+     * 从库名 -> 最近一次检查的延迟秒数，未知为 NaN
+     */
+    private final Map<String, Double> lags = new ConcurrentHashMap<>();
+
+    /**
+     * 已报告过不可用的从库，恢复前不重复告警
+     */
+    private final Set<String> reported = ConcurrentHashMap.newKeySet();
+
+    public ReplicaLagMonitor(ReadWriteRoutingDataSource routingDataSource, Duration maxLag, MeterRegistry meterRegistry) {
+        this.routingDataSource = routingDataSource;
+        this.maxLagSeconds = maxLag.toSeconds();
+        for (String replica : routingDataSource.getReplicas().keySet()) {
+            lags.put(replica, Double.NaN);
+            Gauge.builder("shop.datasource.replica.lag", lags, map -> map.getOrDefault(replica, Double.NaN))
+                    .tag("replica", replica)
+                    .baseUnit("seconds")
+                    .description("从库复制延迟")
+                    .register(meterRegistry);
+            Gauge.builder("shop.datasource.replica.available", routingDataSource,
+                            routing -> routing.isAvailable(replica) ? 1 : 0)
+                    .tag("replica", replica)
+                    .description("从库是否承接读流量")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shop.datasource.routing.check-interval:2000}")
+    public void check() {
+        routingDataSource.getReplicas().forEach((replica, dataSource) -> {
+            Long lag = lagSeconds(replica, dataSource);
+            lags.put(replica, lag == null ? Double.NaN : lag);
+            boolean available = lag != null && lag <= maxLagSeconds;
+            if (available) {
+                reported.remove(replica);
+            } else if (reported.add(replica)) {
+                logger.warn("从库不可用（延迟过大、复制中断或无法连接），读流量改走主库: replica={}, lag={}s, maxLag={}s",
+                        replica, lag, maxLagSeconds);
+            }
+            routingDataSource.setAvailable(replica, available);
+        });
+    }
+
+    /**
+     * 复制延迟秒数；复制未运行、未配置为从库或连接失败时返回null
+     */
+    private Long lagSeconds(String replica, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            try {
+                return readLag(statement, "SHOW REPLICA STATUS", "Seconds_Behind_Source");
+            } catch (SQLException e) {
+                return readLag(statement, "SHOW SLAVE STATUS", "Seconds_Behind_Master");
+            }
+        } catch (SQLException e) {
+            logger.debug("检查从库延迟失败: replica={}, error={}", replica, e.getMessage());
+            return null;
+        }
+    }
+
+    private static Long readLag(Statement statement, String sql, String column) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            if (!rs.next()) {
+                return null;
+            }
+            long lag = rs.getLong(column);
+            return rs.wasNull() ? null : lag;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.shop.entity;
 
 import com.baomidou.mybatisplus.annotation.*;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.Data;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -13,7 +15,11 @@ import java.util.List;
 @TableName("orders")
 public class Order {
 
-    @TableId(type = IdType.AUTO)
+    /**
+     * 订单ID，下单时由订单号生成器分配（低位为分片基因）；超出 JS 安全整数范围，按字符串输出
+     */
+    @TableId(type = IdType.INPUT)
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
 
     /**
@@ -1,6 +1,8 @@
 package com.shop.entity;
 
 import com.baomidou.mybatisplus.annotation.*;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.Data;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -18,6 +20,7 @@ public class OrderItem {
     /**
      * 订单ID
      */
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long orderId;
 
     /**
@@ -0,0 +1,37 @@
+package com.shop.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 库存预占流水实体类
+ */
+@Data
+@TableName("stock_reservation_log")
+public class StockReservationLog {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 实例ID
+     */
+    private String nodeId;
+
+    /**
+     * 商品ID
+     */
+    private Long productId;
+
+    /**
+     * 预占数量，负数表示归还
+     */
+    private Integer quantity;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,19 @@
+package com.shop.exception;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 库存不足异常，携带库存不足的商品ID
+ */
+@Getter
+public class StockShortageException extends BusinessException {
+
+    private final List<Long> productIds;
+
+    public StockShortageException(List<Long> productIds) {
+        super("库存不足");
+        this.productIds = productIds;
+    }
+}
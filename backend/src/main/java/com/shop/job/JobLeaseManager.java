@@ -0,0 +1,55 @@
+package com.shop.job;
+
+import com.shop.mapper.JobLeaseMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 任务分片租约
+ * <p>
+ * 多实例部署时，同一任务的同一分片同一时刻只由持有租约的实例执行。
+ * 持有方需在租约到期前续期；实例崩溃后租约到期，由其他实例接手。
+ */
+@Component
+public class JobLeaseManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobLeaseManager.class);
+
+    @Autowired
+    private JobLeaseMapper jobLeaseMapper;
+
+    @Value("${shop.node-id:shop-node-0}")
+    private String nodeId;
+
+    /**
+     * 获取或续期分片租约
+     *
+     * @return 当前实例是否持有该分片
+     */
+    public boolean tryAcquire(String jobName, int shard, Duration duration) {
+        try {
+            jobLeaseMapper.acquire(jobName, shard, nodeId, Math.max(duration.toSeconds(), 1));
+            return nodeId.equals(jobLeaseMapper.selectOwner(jobName, shard));
+        } catch (RuntimeException e) {
+            // 无法确认时按未持有处理，避免与其他实例重复执行
+            logger.error("获取任务租约失败: job={}, shard={}", jobName, shard, e);
+            return false;
+        }
+    }
+
+    /**
+     * 释放当前实例持有的某任务的全部租约（停机时调用）
+     */
+    public void releaseAll(String jobName) {
+        try {
+            jobLeaseMapper.release(jobName, nodeId);
+        } catch (RuntimeException e) {
+            logger.warn("释放任务租约失败: job={}", jobName, e);
+        }
+    }
+}
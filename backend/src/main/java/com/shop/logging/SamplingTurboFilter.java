@@ -0,0 +1,101 @@
+package com.shop.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按 Logger 采样的日志过滤器
+ * <p>
+ * 对配置的 Logger（按名称前缀匹配，取最长的前缀）每 N 条 INFO 及以下级别的日志只保留 1 条，
+ * WARN 及以上级别始终输出。在 logback-spring.xml 中配置，例如：
+ * <pre>
+ * &lt;turboFilter class="com.shop.logging.SamplingTurboFilter"&gt;
+ *     &lt;sample&gt;com.shop.controller=10&lt;/sample&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final List<Rule> rules = new ArrayList<>();
+
+    /**
+     * Logger 名称 -> 采样计数器，未配置采样的 Logger 对应 NONE
+     */
+    private final Map<String, Sampler> samplers = new ConcurrentHashMap<>();
+
+    private static final Sampler NONE = new Sampler(1);
+
+    /**
+     * 添加采样规则，格式：Logger名称前缀=N
+     */
+    public void addSample(String sample) {
+        int index = sample.indexOf('=');
+        if (index <= 0) {
+            addError("采样规则格式应为 logger=N: " + sample);
+            return;
+        }
+        try {
+            int rate = Integer.parseInt(sample.substring(index + 1).trim());
+            if (rate > 1) {
+                rules.add(new Rule(sample.substring(0, index).trim(), rate));
+            }
+        } catch (NumberFormatException e) {
+            addError("采样率不是整数: " + sample);
+        }
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format,
+                              Object[] params, Throwable t) {
+        if (level == null || level.isGreaterOrEqual(Level.WARN) || t != null) {
+            return FilterReply.NEUTRAL;
+        }
+        Sampler sampler = samplers.computeIfAbsent(logger.getName(), this::samplerFor);
+        if (sampler == NONE || sampler.sample()) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+
+    private Sampler samplerFor(String loggerName) {
+        Rule matched = null;
+        for (Rule rule : rules) {
+            boolean matches = loggerName.equals(rule.prefix)
+                    || loggerName.startsWith(rule.prefix + ".");
+            if (matches && (matched == null || rule.prefix.length() > matched.prefix.length())) {
+                matched = rule;
+            }
+        }
+        return matched == null ? NONE : new Sampler(matched.rate);
+    }
+
+    private record Rule(String prefix, int rate) {
+    }
+
+    /**
+     * 每 rate 条保留 1 条
+     */
+    private static final class Sampler {
+
+        private final int rate;
+
+        private final AtomicLong counter = new AtomicLong();
+
+        private Sampler(int rate) {
+            this.rate = rate;
+        }
+
+        private boolean sample() {
+            return counter.getAndIncrement() % rate == 0;
+        }
+    }
+}
@@ -3,10 +3,30 @@ package com.shop.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.shop.entity.Cart;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
 
 /**
  * 购物车Mapper接口
  */
 @Mapper
 public interface CartMapper extends BaseMapper<Cart> {
+
+    /**
+     * 一条语句批量写回多个购物车项的数量和选中状态（已删除的项不受影响）
+     */
+    @Update("<script>" +
+            "UPDATE cart SET " +
+            "quantity = CASE id " +
+            "<foreach collection='items' item='item'>WHEN #{item.id} THEN #{item.quantity} </foreach>" +
+            "END, " +
+            "checked = CASE id " +
+            "<foreach collection='items' item='item'>WHEN #{item.id} THEN #{item.checked} </foreach>" +
+            "END " +
+            "WHERE id IN " +
+            "<foreach collection='items' item='item' open='(' separator=',' close=')'>#{item.id}</foreach>" +
+            "</script>")
+    int batchUpdateItems(@Param("items") Collection<Cart> items);
 }
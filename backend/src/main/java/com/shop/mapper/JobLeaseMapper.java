@@ -0,0 +1,42 @@
+package com.shop.mapper;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 任务租约Mapper接口
+ * <p>
+ * job_lease 以 (job_name, shard) 为联合主键，没有单列ID，不继承 BaseMapper，只用下面的专用 SQL。
+ */
+@Mapper
+public interface JobLeaseMapper {
+
+    /**
+     * 获取或续期租约：记录不存在、已过期或本来就属于自己时，归属改为自己并延长到期时间。
+     * ON DUPLICATE KEY UPDATE 按顺序赋值，expire_time 判断的是更新后的 owner。
+     */
+    @Insert("INSERT INTO job_lease (job_name, shard, owner, expire_time) " +
+            "VALUES (#{jobName}, #{shard}, #{owner}, NOW() + INTERVAL #{seconds} SECOND) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "owner = IF(owner = VALUES(owner) OR expire_time < NOW(), VALUES(owner), owner), " +
+            "expire_time = IF(owner = VALUES(owner), VALUES(expire_time), expire_time)")
+    int acquire(@Param("jobName") String jobName,
+                @Param("shard") int shard,
+                @Param("owner") String owner,
+                @Param("seconds") long seconds);
+
+    /**
+     * 查询租约当前归属
+     */
+    @Select("SELECT owner FROM job_lease WHERE job_name = #{jobName} AND shard = #{shard}")
+    String selectOwner(@Param("jobName") String jobName, @Param("shard") int shard);
+
+    /**
+     * 释放实例持有的全部租约
+     */
+    @Delete("DELETE FROM job_lease WHERE job_name = #{jobName} AND owner = #{owner}")
+    int release(@Param("jobName") String jobName, @Param("owner") String owner);
+}
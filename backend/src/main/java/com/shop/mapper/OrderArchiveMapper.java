@@ -0,0 +1,84 @@
+package com.shop.mapper;
+
+import com.shop.entity.Order;
+import com.shop.entity.OrderItem;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 订单归档Mapper接口
+ * <p>
+ * 涉及 orders、order_item 的语句在订单分表时需在分片内执行；归档表不分表。
+ */
+@Mapper
+public interface OrderArchiveMapper {
+
+    /**
+     * 锁定一批可归档的订单：指定终态、创建时间早于 before，按创建时间顺序
+     */
+    @Select("SELECT id FROM orders " +
+            "WHERE status = #{status} AND deleted = 0 AND create_time < #{before} " +
+            "ORDER BY create_time, id LIMIT #{limit} FOR UPDATE")
+    List<Long> selectArchivableForUpdate(@Param("status") int status,
+                                         @Param("before") LocalDateTime before,
+                                         @Param("limit") int limit);
+
+    /**
+     * 把订单复制到归档表
+     */
+    @Insert("<script>" +
+            "INSERT INTO orders_archive (id, order_no, user_id, total_amount, status, receiver_name, receiver_phone, " +
+            "receiver_address, remark, pay_time, delivery_time, finish_time, create_time, update_time, deleted) " +
+            "SELECT id, order_no, user_id, total_amount, status, receiver_name, receiver_phone, " +
+            "receiver_address, remark, pay_time, delivery_time, finish_time, create_time, update_time, deleted " +
+            "FROM orders WHERE id IN <foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int copyOrders(@Param("ids") List<Long> ids);
+
+    /**
+     * 把订单项复制到归档表，归档表重新分配订单项ID
+     */
+    @Insert("<script>" +
+            "INSERT INTO order_item_archive (order_id, product_id, product_name, product_image, product_price, " +
+            "quantity, subtotal, create_time) " +
+            "SELECT order_id, product_id, product_name, product_image, product_price, quantity, subtotal, create_time " +
+            "FROM order_item WHERE order_id IN <foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int copyOrderItems(@Param("ids") List<Long> ids);
+
+    /**
+     * 物理删除已归档订单的订单项
+     */
+    @Delete("<script>" +
+            "DELETE FROM order_item WHERE order_id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int deleteOrderItems(@Param("ids") List<Long> ids);
+
+    /**
+     * 物理删除已归档的订单
+     */
+    @Delete("<script>" +
+            "DELETE FROM orders WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int deleteOrders(@Param("ids") List<Long> ids);
+
+    /**
+     * 从归档表查询订单
+     */
+    @Select("SELECT * FROM orders_archive WHERE id = #{id} AND deleted = 0")
+    Order selectOrder(@Param("id") Long id);
+
+    /**
+     * 从归档表查询订单项
+     */
+    @Select("SELECT * FROM order_item_archive WHERE order_id = #{orderId} ORDER BY id")
+    List<OrderItem> selectOrderItems(@Param("orderId") Long orderId);
+}
@@ -1,12 +1,48 @@
 package com.shop.mapper;
 
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.shop.entity.OrderItem;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 订单项Mapper接口
  */
 @Mapper
 public interface OrderItemMapper extends BaseMapper<OrderItem> {
+
+    /**
+     * 一条多行 INSERT 批量插入订单项
+     */
+    @Insert("<script>" +
+            "INSERT INTO order_item (order_id, product_id, product_name, product_image, product_price, quantity, subtotal) " +
+            "VALUES " +
+            "<foreach collection='items' item='item' separator=','>" +
+            "(#{item.orderId}, #{item.productId}, #{item.productName}, #{item.productImage}, " +
+            "#{item.productPrice}, #{item.quantity}, #{item.subtotal})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("items") List<OrderItem> items);
+
+    /**
+     * 查询某时间之后未取消订单的订单项（商品ID、数量、创建时间），用于预热销量排行
+     */
+    @Select("SELECT oi.product_id, oi.quantity, o.create_time FROM order_item oi " +
+            "JOIN orders o ON o.id = oi.order_id " +
+            "WHERE o.create_time >= #{since} AND o.status <> 4 AND o.deleted = 0")
+    List<OrderItem> selectSoldSince(@Param("since") LocalDateTime since);
+
+    /**
+     * 按 order_item 表结构创建订单项分表（不经过分表改写）
+     */
+    @InterceptorIgnore(dynamicTableName = "true")
+    @Update("CREATE TABLE IF NOT EXISTS ${table} LIKE order_item")
+    void createShardTable(@Param("table") String table);
 }
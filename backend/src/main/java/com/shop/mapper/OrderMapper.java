@@ -1,12 +1,93 @@
 package com.shop.mapper;
 
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.shop.entity.Order;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 订单Mapper接口
  */
 @Mapper
 public interface OrderMapper extends BaseMapper<Order> {
+
+    /**
+     * 带条件变更订单状态，同时写入对应的时间字段（付款/发货/完成）
+     *
+     * @param userId 为null时不校验订单所属用户
+     * @return 影响行数，0 表示订单不存在、不属于该用户或状态不符
+     */
+    @Update("<script>" +
+            "UPDATE orders SET status = #{to}" +
+            "<if test='to == 1'>, pay_time = #{time}</if>" +
+            "<if test='to == 2'>, delivery_time = #{time}</if>" +
+            "<if test='to == 3'>, finish_time = #{time}</if>" +
+            ", update_time = #{time} " +
+            "WHERE id = #{id} AND status = #{from} AND deleted = 0" +
+            "<if test='userId != null'> AND user_id = #{userId}</if>" +
+            "</script>")
+    int updateStatus(@Param("id") Long id,
+                     @Param("userId") Long userId,
+                     @Param("from") int from,
+                     @Param("to") int to,
+                     @Param("time") LocalDateTime time);
+
+    /**
+     * 按创建时间顺序分页查询某分片的待付款订单（只取ID和创建时间），从 (afterTime, afterId) 之后开始
+     */
+    @Select("SELECT id, create_time FROM orders " +
+            "WHERE status = 0 AND deleted = 0 AND MOD(id, #{shards}) = #{shard} " +
+            "AND (create_time > #{afterTime} OR (create_time = #{afterTime} AND id > #{afterId})) " +
+            "ORDER BY create_time, id LIMIT #{limit}")
+    List<Order> selectPendingPayment(@Param("shards") int shards,
+                                     @Param("shard") int shard,
+                                     @Param("afterTime") LocalDateTime afterTime,
+                                     @Param("afterId") long afterId,
+                                     @Param("limit") int limit);
+
+    /**
+     * 锁定一批已超时的待付款订单，返回实际锁定的订单（已支付、已取消的不返回）
+     */
+    @Select("<script>" +
+            "SELECT id, user_id, create_time FROM orders " +
+            "WHERE id IN <foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "AND status = 0 AND deleted = 0 AND create_time &lt;= #{deadline} " +
+            "ORDER BY id FOR UPDATE" +
+            "</script>")
+    List<Order> selectExpiredForUpdate(@Param("ids") Collection<Long> ids,
+                                       @Param("deadline") LocalDateTime deadline);
+
+    /**
+     * 批量带条件变更订单状态（不写付款/发货/完成时间，用于批量关单）
+     */
+    @Update("<script>" +
+            "UPDATE orders SET status = #{to}, update_time = #{time} " +
+            "WHERE id IN <foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "AND status = #{from} AND deleted = 0" +
+            "</script>")
+    int batchUpdateStatus(@Param("ids") Collection<Long> ids,
+                          @Param("from") int from,
+                          @Param("to") int to,
+                          @Param("time") LocalDateTime time);
+
+    /**
+     * 按 orders 表结构创建订单分表（不经过分表改写）
+     */
+    @InterceptorIgnore(dynamicTableName = "true")
+    @Update("CREATE TABLE IF NOT EXISTS ${table} LIKE orders")
+    void createShardTable(@Param("table") String table);
+
+    /**
+     * 查询 orders 原表中的任意一个订单ID，用于分表后检查是否有未迁移的订单
+     */
+    @InterceptorIgnore(dynamicTableName = "true")
+    @Select("SELECT id FROM orders LIMIT 1")
+    Long selectUnshardedId();
 }
@@ -0,0 +1,40 @@
+package com.shop.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.shop.entity.OrderOutbox;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 订单事件出箱Mapper接口
+ */
+@Mapper
+public interface OrderOutboxMapper extends BaseMapper<OrderOutbox> {
+
+    /**
+     * 锁定一条待投递的事件；已被其他实例锁定时跳过（返回null）
+     */
+    @Select("SELECT * FROM order_outbox WHERE id = #{id} AND status = 0 FOR UPDATE SKIP LOCKED")
+    OrderOutbox selectPendingForUpdate(@Param("id") Long id);
+
+    /**
+     * 查询到期待投递的事件ID
+     */
+    @Select("SELECT id FROM order_outbox WHERE status = 0 AND next_retry_time <= NOW() ORDER BY id LIMIT #{limit}")
+    List<Long> selectDueIds(@Param("limit") int limit);
+
+    /**
+     * 记录投递失败
+     */
+    @Update("UPDATE order_outbox SET status = #{status}, attempts = attempts + 1, " +
+            "next_retry_time = #{nextRetryTime}, last_error = #{lastError} WHERE id = #{id}")
+    int markFailed(@Param("id") Long id,
+                   @Param("status") int status,
+                   @Param("nextRetryTime") LocalDateTime nextRetryTime,
+                   @Param("lastError") String lastError);
+}
@@ -7,19 +7,27 @@ import com.shop.entity.Product;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 商品Mapper接口
+ * <p>
+ * 批量方法的 Map 参数不能传 TreeMap：MyBatis-Plus 会用字符串键探测 Map 参数，Long 键的 TreeMap 会抛 ClassCastException。
+ * 需要固定顺序时复制为 LinkedHashMap。
  */
 @Mapper
 public interface ProductMapper extends BaseMapper<Product> {
 
     /**
-     * 分页查询商品（带分类名称）
+     * 分页查询商品（分类名称由调用方从分类快照填充）
      */
     @Select("<script>" +
-            "SELECT p.*, c.name as category_name FROM product p " +
-            "LEFT JOIN category c ON p.category_id = c.id " +
+            "SELECT p.* FROM product p " +
             "WHERE p.deleted = 0 " +
             "<if test='name != null and name != \"\"'> AND p.name LIKE CONCAT('%', #{name}, '%') </if>" +
             "<if test='categoryId != null'> AND p.category_id = #{categoryId} </if>" +
@@ -30,4 +38,81 @@ public interface ProductMapper extends BaseMapper<Product> {
                                      @Param("name") String name,
                                      @Param("categoryId") Long categoryId,
                                      @Param("status") Integer status);
+
+    /**
+     * 条件扣减库存（库存不足时不更新）
+     */
+    @Update("UPDATE product SET stock = stock - #{quantity} " +
+            "WHERE id = #{id} AND stock >= #{quantity} AND deleted = 0")
+    int deductStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * 调整库存（增量，可为负数）
+     */
+    @Update("UPDATE product SET stock = stock + #{quantity} WHERE id = #{id}")
+    int adjustStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * 批量读取商品的分类（只取ID和分类ID），用于销量排行按分类归组
+     */
+    @Select("<script>" +
+            "SELECT id, category_id FROM product WHERE deleted = 0 AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<Product> selectCategories(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 查询某时间之后有修改的商品销量（包含已删除的商品，用于实时销量增量对齐）
+     */
+    @Select("SELECT id, sales, deleted FROM product WHERE update_time >= #{since}")
+    List<Product> selectSalesChangedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * 按ID升序锁定商品行并读取库存（SELECT ... FOR UPDATE），保证多商品加锁顺序一致
+     */
+    @Select("<script>" +
+            "SELECT id, name, stock FROM product WHERE deleted = 0 AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "ORDER BY id FOR UPDATE" +
+            "</script>")
+    List<Product> selectStockForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 一条语句批量扣减多个商品的库存（key: 商品ID, value: 数量）
+     */
+    @Update("<script>" +
+            "UPDATE product SET " +
+            "stock = stock - CASE id " +
+            "<foreach collection='quantities' index='id' item='quantity'>WHEN #{id} THEN #{quantity} </foreach>" +
+            "END " +
+            "WHERE id IN " +
+            "<foreach collection='quantities' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int batchDeductStock(@Param("quantities") Map<Long, Integer> quantities);
+
+    /**
+     * 一条语句批量恢复多个商品的库存（key: 商品ID, value: 数量）
+     */
+    @Update("<script>" +
+            "UPDATE product SET " +
+            "stock = stock + CASE id " +
+            "<foreach collection='quantities' index='id' item='quantity'>WHEN #{id} THEN #{quantity} </foreach>" +
+            "END " +
+            "WHERE id IN " +
+            "<foreach collection='quantities' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int batchRestoreStock(@Param("quantities") Map<Long, Integer> quantities);
+
+    /**
+     * 一条语句批量累加多个商品的销量（key: 商品ID, value: 增量，可为负数）
+     */
+    @Update("<script>" +
+            "UPDATE product SET " +
+            "sales = sales + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'>WHEN #{id} THEN #{delta} </foreach>" +
+            "END " +
+            "WHERE id IN " +
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int batchAddSales(@Param("deltas") Map<Long, Long> deltas);
 }
@@ -0,0 +1,46 @@
+package com.shop.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.shop.entity.StockReservationLog;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 库存预占Mapper接口（流水表 + 配额表）
+ */
+@Mapper
+public interface StockReservationMapper extends BaseMapper<StockReservationLog> {
+
+    /**
+     * 调整实例的库存配额（增量，可为负数；记录不存在时插入）
+     */
+    @Insert("INSERT INTO stock_quota (node_id, product_id, quantity) VALUES (#{nodeId}, #{productId}, #{quantity}) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity)")
+    int addQuota(@Param("nodeId") String nodeId,
+                 @Param("productId") Long productId,
+                 @Param("quantity") int quantity);
+
+    /**
+     * 查询实例持有的全部配额
+     */
+    @Select("SELECT product_id, quantity FROM stock_quota WHERE node_id = #{nodeId}")
+    List<StockReservationLog> selectQuota(@Param("nodeId") String nodeId);
+
+    /**
+     * 按ID顺序读取实例的一批流水
+     */
+    @Select("SELECT id, product_id, quantity FROM stock_reservation_log " +
+            "WHERE node_id = #{nodeId} ORDER BY id LIMIT #{limit}")
+    List<StockReservationLog> selectBatch(@Param("nodeId") String nodeId, @Param("limit") int limit);
+
+    /**
+     * 删除实例的全部配额
+     */
+    @Delete("DELETE FROM stock_quota WHERE node_id = #{nodeId}")
+    int deleteQuota(@Param("nodeId") String nodeId);
+}
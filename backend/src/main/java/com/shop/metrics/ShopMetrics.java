@@ -0,0 +1,41 @@
+package com.shop.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 业务指标
+ * <p>
+ * shop.checkout：下单结果计数，result = success / rejected（业务校验未通过，含库存不足、系统繁忙）/ failure；
+ * shop.stock.conflicts：库存冲突计数，type = shortage（扣减时库存不足）/ grant_retry（并发领取配额重试）。
+ */
+@Component
+public class ShopMetrics {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * 下单结果
+     */
+    public void checkout(String result) {
+        Counter.builder("shop.checkout")
+                .description("下单结果计数")
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * 库存冲突
+     */
+    public void stockConflict(String type, int count) {
+        Counter.builder("shop.stock.conflicts")
+                .description("库存冲突计数")
+                .tag("type", type)
+                .register(registry)
+                .increment(count);
+    }
+}
@@ -0,0 +1,77 @@
+package com.shop.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL 耗时统计插件
+ * <p>
+ * 按 Mapper 方法记录 shop.sql 计时（标签 mapper、method、type），只计执行器层面的耗时，包含网络往返。
+ * 另累计执行的语句数，基准测试用它统计每次操作的数据库往返次数。
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class,
+                        CacheKey.class, BoundSql.class})
+})
+public class SqlMetricsInterceptor implements Interceptor {
+
+    private final MeterRegistry registry;
+
+    private final LongAdder statements = new LongAdder();
+
+    public SqlMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 启动以来执行的 SQL 语句数（每条语句一次数据库往返）
+     */
+    public long getStatementCount() {
+        return statements.sum();
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            statements.increment();
+            // 语句ID形如 com.shop.mapper.ProductMapper.selectById
+            String id = statement.getId();
+            int methodIndex = id.lastIndexOf('.');
+            int mapperIndex = id.lastIndexOf('.', methodIndex - 1);
+            Timer.builder("shop.sql")
+                    .description("Mapper 方法执行耗时")
+                    .tag("mapper", id.substring(mapperIndex + 1, methodIndex))
+                    .tag("method", id.substring(methodIndex + 1))
+                    .tag("type", statement.getSqlCommandType().name())
+                    .tag("outcome", outcome)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
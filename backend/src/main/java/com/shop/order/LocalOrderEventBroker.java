@@ -0,0 +1,23 @@
+package com.shop.order;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * 进程内订单事件投递：通过 Spring 事件分发给本实例的监听方
+ * <p>
+ * 在投递事务中发布：@EventListener 监听方随投递事务执行（适合数据库副作用，与出箱记录的删除一起提交），
+ * @TransactionalEventListener 监听方在投递事务提交后执行（适合内存计数等）。
+ */
+@Component
+public class LocalOrderEventBroker implements OrderEventBroker {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void send(OrderEvent event) {
+        eventPublisher.publishEvent(event);
+    }
+}
@@ -0,0 +1,174 @@
+package com.shop.order;
+
+import com.shop.job.JobLeaseManager;
+import com.shop.mapper.OrderArchiveMapper;
+import com.shop.sharding.OrderShardContext;
+import com.shop.sharding.OrderShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已结束订单归档
+ * <p>
+ * 定时把创建时间早于保留期的已完成、已取消订单连同订单项移入归档表（orders_archive、order_item_archive），
+ * 订单表只保留近期和进行中的订单。每批订单的复制和删除在一个事务中完成，批间暂停，避免长事务和复制延迟。
+ * 按订单分表逐个分片处理，每个分片通过任务租约归属到一个实例；归档在独立线程中执行，不占用定时任务线程。
+ */
+@Component
+public class OrderArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchiver.class);
+
+    private static final String JOB_NAME = "order-archive";
+
+    private static final List<OrderStatus> CLOSED = List.of(OrderStatus.COMPLETED, OrderStatus.CANCELLED);
+
+    @Autowired
+    private OrderArchiveMapper orderArchiveMapper;
+
+    @Autowired
+    private OrderShardRouter orderShardRouter;
+
+    @Autowired
+    private JobLeaseManager jobLeaseManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${shop.order.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${shop.order.archive.retention:180d}")
+    private Duration retention;
+
+    @Value("${shop.order.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${shop.order.archive.batch-pause:200}")
+    private long batchPauseMillis;
+
+    @Value("${shop.order.archive.lease-duration:5m}")
+    private Duration leaseDuration;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ThreadPoolExecutor executor;
+
+    private Counter archivedCounter;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // 单线程，上一轮未结束时跳过本轮
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "order-archive");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+        archivedCounter = Counter.builder("shop.order.archived")
+                .description("移入归档表的订单数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // 中断批间暂停，正在执行的批次提交或回滚后退出
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        if (enabled) {
+            jobLeaseManager.releaseAll(JOB_NAME);
+        }
+    }
+
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${shop.order.archive.interval:600000}")
+    public void schedule() {
+        if (enabled) {
+            executor.execute(this::archive);
+        }
+    }
+
+    /**
+     * 归档所有持有租约的分片
+     */
+    private void archive() {
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        for (int shard = 0; shard < orderShardRouter.getShards(); shard++) {
+            if (!jobLeaseManager.tryAcquire(JOB_NAME, shard, leaseDuration)) {
+                continue;
+            }
+            try {
+                int archived = archiveShard(shard, before);
+                if (archived > 0) {
+                    logger.info("订单归档完成: shard={}, count={}, before={}", shard, archived, before);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("订单归档失败，下一轮继续: shard={}", shard, e);
+            }
+        }
+    }
+
+    /**
+     * 按批归档一个分片，每批之后续租，租约失去时停止
+     *
+     * @return 归档的订单数
+     */
+    private int archiveShard(int shard, LocalDateTime before) throws InterruptedException {
+        int total = 0;
+        for (OrderStatus status : CLOSED) {
+            while (true) {
+                int archived = OrderShardContext.with(shard,
+                        () -> transactionTemplate.execute(tx -> archiveBatch(status, before)));
+                total += archived;
+                archivedCounter.increment(archived);
+                if (archived < batchSize) {
+                    break;
+                }
+                Thread.sleep(batchPauseMillis);
+                if (!jobLeaseManager.tryAcquire(JOB_NAME, shard, leaseDuration)) {
+                    logger.warn("订单归档分片租约已失去: shard={}", shard);
+                    return total;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 归档一批订单：锁定、复制到归档表、从订单表删除，需在事务中执行
+     */
+    private int archiveBatch(OrderStatus status, LocalDateTime before) {
+        List<Long> ids = orderArchiveMapper.selectArchivableForUpdate(status.getCode(), before, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        orderArchiveMapper.copyOrders(ids);
+        orderArchiveMapper.copyOrderItems(ids);
+        orderArchiveMapper.deleteOrderItems(ids);
+        return orderArchiveMapper.deleteOrders(ids);
+    }
+}
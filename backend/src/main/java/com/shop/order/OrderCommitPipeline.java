@@ -0,0 +1,228 @@
+package com.shop.order;
+
+import com.shop.exception.BusinessException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 下单组提交管道（默认关闭）
+ * <p>
+ * 并发的下单请求进入队列，由工作线程攒成一批后放在同一个事务里执行，一次提交（一次 fsync）。
+ * 每个下单在独立的保存点（NESTED）中执行，业务校验失败（BusinessException）只回滚到自己的保存点，不影响同批其他下单；
+ * 其他异常（死锁、锁等待超时、连接断开等）会使整个事务回滚，此时整批改为逐个在独立事务中重新执行。
+ * 请求线程等待所在批次提交后才返回结果。
+ */
+@Component
+public class OrderCommitPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderCommitPipeline.class);
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${shop.order.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${shop.order.group-commit.max-batch-size:32}")
+    private int maxBatchSize;
+
+    @Value("${shop.order.group-commit.max-wait:2}")
+    private long maxWaitMillis;
+
+    @Value("${shop.order.group-commit.queue-capacity:1024}")
+    private int queueCapacity;
+
+    private BlockingQueue<Task<?>> queue;
+
+    private TransactionTemplate batchTemplate;
+
+    private TransactionTemplate nestedTemplate;
+
+    private DistributionSummary batchSizes;
+
+    private Thread worker;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("shop.order.group_commit.queue", queue, BlockingQueue::size)
+                .description("等待组提交的下单数")
+                .register(meterRegistry);
+        batchSizes = DistributionSummary.builder("shop.order.group_commit.batch_size")
+                .description("每批合并的下单数")
+                .register(meterRegistry);
+        batchTemplate = new TransactionTemplate(transactionManager);
+        nestedTemplate = new TransactionTemplate(transactionManager);
+        nestedTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+
+        running = true;
+        worker = new Thread(this::runLoop, "order-group-commit");
+        worker.setDaemon(true);
+        worker.start();
+        logger.info("下单组提交已启用: maxBatchSize={}, maxWait={}ms", maxBatchSize, maxWaitMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (worker == null) {
+            return;
+        }
+        // 停止接收新批次，处理完队列中剩余的请求
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交一个下单操作，阻塞到所在批次提交后返回其结果；下单失败时抛出原异常
+     */
+    public <T> T submit(Supplier<T> action) {
+        Task<T> task = new Task<>(action);
+        if (!running || !queue.offer(task)) {
+            throw new BusinessException("系统繁忙，请稍后重试");
+        }
+        try {
+            return task.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void runLoop() {
+        List<Task<?>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Task<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 攒批：最多等待 maxWait，或攒满 maxBatchSize
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Task<?> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                commitBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("下单组提交异常", e);
+            } finally {
+                for (Task<?> task : batch) {
+                    // 兜底：异常退出时不让请求线程一直等待
+                    task.future.completeExceptionally(new BusinessException("系统繁忙，请稍后重试"));
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void commitBatch(List<Task<?>> batch) {
+        try {
+            batchTemplate.executeWithoutResult(status -> {
+                for (Task<?> task : batch) {
+                    try {
+                        nestedTemplate.executeWithoutResult(savepoint -> task.run());
+                    } catch (BusinessException e) {
+                        // 已回滚到该下单的保存点
+                        task.error = e;
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // 整个事务已回滚，之前执行成功的下单也不再有效，逐个单独重试
+            logger.warn("下单批次回滚，逐个重新提交: size={}", batch.size(), e);
+            for (Task<?> task : batch) {
+                task.reset();
+                try {
+                    batchTemplate.executeWithoutResult(status -> task.run());
+                } catch (RuntimeException ex) {
+                    task.error = ex;
+                }
+            }
+        }
+
+        for (Task<?> task : batch) {
+            task.complete();
+        }
+        batchSizes.record(batch.size());
+        logger.debug("下单批次已提交: size={}", batch.size());
+    }
+
+    /**
+     * 队列中的一个下单操作
+     */
+    private static final class Task<T> {
+
+        private final Supplier<T> action;
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private T result;
+
+        private RuntimeException error;
+
+        private Task(Supplier<T> action) {
+            this.action = action;
+        }
+
+        private void run() {
+            result = action.get();
+        }
+
+        private void reset() {
+            result = null;
+            error = null;
+        }
+
+        private void complete() {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.shop.order;
+
+import com.shop.entity.Order;
+import com.shop.entity.OrderItem;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 订单事件
+ * <p>
+ * 订单状态变更时与订单在同一事务中写入出箱表，提交后异步投递（见 OrderEventOutbox）。
+ * 以 JSON 形式存储，需保持可序列化。
+ */
+@Data
+@NoArgsConstructor
+public class OrderEvent {
+
+    /**
+     * 事件类型
+     * <p>
+     * EXPIRED 为超时未付款的自动关单，库存已在关单事务中批量恢复，处理方不再恢复库存。
+     */
+    public enum Type {
+        CREATED, PAID, DELIVERED, COMPLETED, CANCELLED, EXPIRED;
+
+        /**
+         * 是否为取消类事件（用户/管理员取消或超时关单）
+         */
+        public boolean isCancellation() {
+            return this == CANCELLED || this == EXPIRED;
+        }
+
+        /**
+         * 订单变为某状态时对应的事件
+         */
+        public static Type forStatus(OrderStatus status) {
+            return switch (status) {
+                case PENDING_PAYMENT -> CREATED;
+                case PAID -> PAID;
+                case DELIVERED -> DELIVERED;
+                case COMPLETED -> COMPLETED;
+                case CANCELLED -> CANCELLED;
+            };
+        }
+    }
+
+    private Type type;
+
+    private Long orderId;
+
+    private Long userId;
+
+    /**
+     * 订单创建时间（下单、取消、关单事件携带，为原订单的创建时间）
+     */
+    private LocalDateTime orderTime;
+
+    /**
+     * 订单项，下单、取消和关单事件携带
+     */
+    private List<OrderItem> items;
+
+    public OrderEvent(Type type, Order order, List<OrderItem> items) {
+        this.type = type;
+        this.orderId = order.getId();
+        this.userId = order.getUserId();
+        this.orderTime = order.getCreateTime() != null ? order.getCreateTime() : LocalDateTime.now();
+        this.items = items == null ? new ArrayList<>() : new ArrayList<>(items);
+    }
+
+    /**
+     * 不携带订单内容的状态变更事件（支付、发货、完成）
+     */
+    public OrderEvent(Type type, Long orderId, Long userId) {
+        this.type = type;
+        this.orderId = orderId;
+        this.userId = userId;
+        this.items = new ArrayList<>();
+    }
+}
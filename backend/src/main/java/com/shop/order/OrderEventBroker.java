@@ -0,0 +1,15 @@
+package com.shop.order;
+
+/**
+ * 订单事件投递通道
+ * <p>
+ * 由出箱投递任务在事务中调用：抛出异常表示投递失败，事务回滚后按退避策略重试。
+ * 默认实现为进程内投递（LocalOrderEventBroker），接入消息队列时替换为对应实现。
+ */
+public interface OrderEventBroker {
+
+    /**
+     * 投递事件
+     */
+    void send(OrderEvent event);
+}
@@ -0,0 +1,57 @@
+package com.shop.order;
+
+import com.shop.entity.OrderItem;
+import com.shop.sales.SalesCounter;
+import com.shop.service.ProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 订单事件的副作用处理
+ */
+@Component
+public class OrderEventHandlers {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private SalesCounter salesCounter;
+
+    /**
+     * 取消订单后恢复库存；在投递事务中执行，与出箱记录的删除一起提交
+     */
+    @EventListener
+    public void restoreStock(OrderEvent event) {
+        if (event.getType() == OrderEvent.Type.CANCELLED) {
+            productService.restoreStocks(quantities(event));
+        }
+    }
+
+    /**
+     * 下单、取消、关单后更新销量计数；投递事务提交后执行
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void recordSales(OrderEvent event) {
+        if (event.getType() == OrderEvent.Type.CREATED) {
+            salesCounter.record(quantities(event));
+        } else if (event.getType().isCancellation()) {
+            Map<Long, Integer> quantities = quantities(event);
+            quantities.replaceAll((productId, quantity) -> -quantity);
+            salesCounter.record(quantities);
+        }
+    }
+
+    private static Map<Long, Integer> quantities(OrderEvent event) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItem item : event.getItems()) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+}
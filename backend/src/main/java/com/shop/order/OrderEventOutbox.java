@@ -0,0 +1,178 @@
+package com.shop.order;
+
+import com.alibaba.fastjson2.JSON;
+import com.shop.entity.OrderOutbox;
+import com.shop.mapper.OrderOutboxMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 订单事件出箱
+ * <p>
+ * 订单状态变更时在同一事务中写入出箱表，事务提交后由后台线程投递，不占用请求线程。
+ * 投递时锁定出箱记录（SKIP LOCKED，多实例下同一事件只由一个实例处理），
+ * 在同一事务中调用 OrderEventBroker 并删除记录：数据库副作用与删除一起提交，只生效一次；
+ * 投递失败时回滚并按指数退避重试，超过最大次数后标记为失败。定时任务兜底投递遗漏的事件。
+ */
+@Component
+public class OrderEventOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventOutbox.class);
+
+    /**
+     * 新写入的事件由提交后的投递任务处理，定时任务在此之后才接手
+     */
+    private static final long FIRST_RETRY_DELAY_SECONDS = 10;
+
+    private static final long MAX_RETRY_DELAY_SECONDS = 300;
+
+    @Autowired
+    private OrderOutboxMapper outboxMapper;
+
+    @Autowired
+    private OrderEventBroker broker;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${shop.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${shop.outbox.relay-threads:2}")
+    private int relayThreads;
+
+    @Value("${shop.outbox.poll-batch-size:100}")
+    private int pollBatchSize;
+
+    private TransactionTemplate requiresNew;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 队列满时直接丢弃投递任务，由定时任务兜底
+        executor = new ThreadPoolExecutor(relayThreads, relayThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(10000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "order-outbox-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 写入事件，需在订单事务中调用；提交后异步投递
+     */
+    public void append(OrderEvent event) {
+        OrderOutbox outbox = new OrderOutbox();
+        outbox.setOrderId(event.getOrderId());
+        outbox.setEventType(event.getType().name());
+        outbox.setPayload(JSON.toJSONString(event));
+        outbox.setStatus(0);
+        outbox.setAttempts(0);
+        outbox.setNextRetryTime(LocalDateTime.now().plusSeconds(FIRST_RETRY_DELAY_SECONDS));
+        outboxMapper.insert(outbox);
+
+        Long id = outbox.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executor.execute(() -> relay(id));
+                }
+            });
+        } else {
+            executor.execute(() -> relay(id));
+        }
+    }
+
+    /**
+     * 定时投递到期的事件（提交后投递失败、被丢弃或实例重启遗留的）
+     */
+    @Scheduled(fixedDelayString = "${shop.outbox.poll-interval:5000}")
+    public void poll() {
+        List<Long> ids;
+        try {
+            ids = outboxMapper.selectDueIds(pollBatchSize);
+        } catch (RuntimeException e) {
+            logger.error("查询待投递订单事件失败", e);
+            return;
+        }
+        for (Long id : ids) {
+            relay(id);
+        }
+    }
+
+    /**
+     * 投递单个事件
+     */
+    private void relay(Long id) {
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                OrderOutbox outbox = outboxMapper.selectPendingForUpdate(id);
+                if (outbox == null) {
+                    // 已投递、已被其他实例锁定，或所在事务已回滚
+                    return;
+                }
+                broker.send(JSON.parseObject(outbox.getPayload(), OrderEvent.class));
+                outboxMapper.deleteById(id);
+            });
+        } catch (RuntimeException e) {
+            markFailed(id, e);
+        }
+    }
+
+    private void markFailed(Long id, RuntimeException cause) {
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                OrderOutbox outbox = outboxMapper.selectById(id);
+                if (outbox == null) {
+                    return;
+                }
+                int attempts = outbox.getAttempts() + 1;
+                boolean exhausted = attempts >= maxAttempts;
+                long delay = Math.min(1L << Math.min(attempts, 20), MAX_RETRY_DELAY_SECONDS);
+                String message = String.valueOf(cause.getMessage());
+                outboxMapper.markFailed(id, exhausted ? 2 : 0, LocalDateTime.now().plusSeconds(delay),
+                        message.length() > 500 ? message.substring(0, 500) : message);
+                if (exhausted) {
+                    logger.error("订单事件投递失败，已停止重试: id={}, orderId={}, type={}",
+                            id, outbox.getOrderId(), outbox.getEventType(), cause);
+                } else {
+                    logger.warn("订单事件投递失败，{}秒后重试: id={}, attempts={}", delay, id, attempts, cause);
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("记录订单事件投递失败出错: id={}", id, e);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.shop.order;
+
+import com.shop.entity.Order;
+import com.shop.job.JobLeaseManager;
+import com.shop.mapper.OrderMapper;
+import com.shop.service.OrderService;
+import com.shop.sharding.OrderShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 超时未付款订单自动关闭
+ * <p>
+ * 订单按 ID 取模分片，每个分片通过任务租约归属到一个实例。实例取得分片后从数据库加载该分片的
+ * 待付款订单（按创建时间）放入时间轮，到期后批量关单并恢复库存；之后定时增量扫描新订单。
+ * 实例停机或崩溃后租约释放/到期，由其他实例接手并重新加载。
+ */
+@Component
+public class OrderExpiryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExpiryScheduler.class);
+
+    private static final String JOB_NAME = "order-expiry";
+
+    /**
+     * 单次加载的订单数
+     */
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    /**
+     * 增量扫描时回看的时长，覆盖晚于扫描位置提交的订单
+     */
+    private static final Duration SCAN_OVERLAP = Duration.ofMinutes(1);
+
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private JobLeaseManager jobLeaseManager;
+
+    @Autowired
+    private OrderShardRouter orderShardRouter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${shop.order.expire.enabled:true}")
+    private boolean enabled;
+
+    @Value("${shop.order.expire.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${shop.order.expire.shards:8}")
+    private int shards;
+
+    @Value("${shop.order.expire.lease-duration:30s}")
+    private Duration leaseDuration;
+
+    @Value("${shop.order.expire.tick-interval:1000}")
+    private long tickMillis;
+
+    @Value("${shop.order.expire.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * 已放入时间轮的订单ID -> 分片，用于去重
+     */
+    private final Map<Long, Integer> scheduled = new ConcurrentHashMap<>();
+
+    /**
+     * 当前实例持有的分片 -> 下次增量扫描的起始创建时间
+     */
+    private final Map<Integer, LocalDateTime> ownedShards = new ConcurrentHashMap<>();
+
+    private TimingWheel<Long> wheel;
+
+    private Counter expiredCounter;
+
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel<>(tickMillis, 512, System.currentTimeMillis());
+        Gauge.builder("shop.order.expire.scheduled", scheduled, Map::size)
+                .description("时间轮中等待超时关闭的订单数")
+                .register(meterRegistry);
+        Gauge.builder("shop.order.expire.shards", ownedShards, Map::size)
+                .description("当前实例负责的关单分片数")
+                .register(meterRegistry);
+        expiredCounter = Counter.builder("shop.order.expired")
+                .description("超时自动关闭的订单数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (enabled && !ownedShards.isEmpty()) {
+            // 主动释放，其他实例在下一轮续租时即可接手
+            jobLeaseManager.releaseAll(JOB_NAME);
+        }
+    }
+
+    /**
+     * 续租分片：新取得的分片全量加载，已持有的分片增量扫描，失去的分片停止处理
+     */
+    @Scheduled(initialDelay = 5000, fixedDelayString = "${shop.order.expire.scan-interval:10000}")
+    public void renewAndScan() {
+        if (!enabled) {
+            return;
+        }
+        for (int shard = 0; shard < shards; shard++) {
+            if (!jobLeaseManager.tryAcquire(JOB_NAME, shard, leaseDuration)) {
+                if (ownedShards.remove(shard) != null) {
+                    logger.warn("关单分片租约已失去: shard={}", shard);
+                }
+                continue;
+            }
+            LocalDateTime from = ownedShards.get(shard);
+            if (from == null) {
+                logger.info("取得关单分片: shard={}", shard);
+                // 加载失败时保持从头加载
+                from = MIN_TIME;
+                ownedShards.put(shard, from);
+            }
+            try {
+                LocalDateTime scanTime = LocalDateTime.now();
+                int loaded = load(shard, from);
+                ownedShards.put(shard, scanTime.minus(SCAN_OVERLAP));
+                if (loaded > 0) {
+                    logger.debug("加载待付款订单: shard={}, count={}", shard, loaded);
+                }
+            } catch (RuntimeException e) {
+                logger.error("加载待付款订单失败: shard={}", shard, e);
+            }
+        }
+    }
+
+    /**
+     * 下单后立即放入时间轮（本实例负责该分片时），不必等下一轮扫描
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        if (enabled && event.getType() == OrderEvent.Type.CREATED) {
+            track(event.getOrderId(), event.getOrderTime());
+        }
+    }
+
+    /**
+     * 推进时间轮，到期订单按批关闭
+     */
+    @Scheduled(fixedDelayString = "${shop.order.expire.tick-interval:1000}")
+    public void tick() {
+        if (!enabled || scheduled.isEmpty()) {
+            return;
+        }
+        List<Long> due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+        List<Long> batch = new ArrayList<>(batchSize);
+        for (Long orderId : due) {
+            Integer shard = scheduled.remove(orderId);
+            // 分片已交给其他实例
+            if (shard == null || !ownedShards.containsKey(shard)) {
+                continue;
+            }
+            batch.add(orderId);
+            if (batch.size() >= batchSize) {
+                expire(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            expire(batch);
+        }
+    }
+
+    private void expire(List<Long> orderIds) {
+        try {
+            List<Long> expired = orderService.expireOrders(orderIds, LocalDateTime.now().minus(timeout));
+            expiredCounter.increment(expired.size());
+        } catch (RuntimeException e) {
+            logger.error("批量关闭超时订单失败，稍后重试: count={}", orderIds.size(), e);
+            // 过一段时间再试，期间分片若被接手由新实例处理
+            long retryAt = System.currentTimeMillis() + tickMillis * 10;
+            synchronized (wheel) {
+                for (Long orderId : orderIds) {
+                    if (scheduled.putIfAbsent(orderId, shardOf(orderId)) == null) {
+                        wheel.add(orderId, retryAt);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 按创建时间分页加载分片内的待付款订单；订单分表时关单分片与分表无关，逐张分表加载
+     *
+     * @return 新放入时间轮的订单数
+     */
+    private int load(int shard, LocalDateTime from) {
+        return orderShardRouter.scatter(() -> loadTable(shard, from)).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private int loadTable(int shard, LocalDateTime from) {
+        int loaded = 0;
+        LocalDateTime afterTime = from;
+        long afterId = 0;
+        List<Order> page;
+        do {
+            page = orderMapper.selectPendingPayment(shards, shard, afterTime, afterId, LOAD_PAGE_SIZE);
+            for (Order order : page) {
+                if (track(order.getId(), order.getCreateTime())) {
+                    loaded++;
+                }
+            }
+            if (!page.isEmpty()) {
+                Order last = page.get(page.size() - 1);
+                afterTime = last.getCreateTime();
+                afterId = last.getId();
+            }
+        } while (page.size() >= LOAD_PAGE_SIZE);
+        return loaded;
+    }
+
+    /**
+     * 把本实例负责的分片中的订单放入时间轮，已放入的忽略
+     */
+    private boolean track(Long orderId, LocalDateTime createTime) {
+        int shard = shardOf(orderId);
+        if (!ownedShards.containsKey(shard) || scheduled.putIfAbsent(orderId, shard) != null) {
+            return false;
+        }
+        long deadline = createTime.plus(timeout).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        synchronized (wheel) {
+            wheel.add(orderId, deadline);
+        }
+        return true;
+    }
+
+    private int shardOf(Long orderId) {
+        return (int) Math.floorMod(orderId, (long) shards);
+    }
+}
@@ -0,0 +1,118 @@
+package com.shop.order;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 订单号生成器（Snowflake 结构）
+ * <p>
+ * 64 位ID = 41 位毫秒时间戳（自 2024-01-01 起）| 10 位实例号 | 6 位序列号 | 6 位分片基因。
+ * 时间戳和序列号打包在一个 AtomicLong 中无锁 CAS 递增，生成ID不分配对象：
+ * 同一毫秒内序列号用完时借用下一毫秒，时钟回拨时沿用上次的时间继续递增，
+ * 因此本实例内时间和序列部分严格递增；实例号不同的实例之间不会重复。
+ * 分片基因由调用方传入（下单用户的分片基因），按订单ID即可算出订单所在分片。
+ */
+@Component
+public class OrderNoGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderNoGenerator.class);
+
+    /**
+     * 起始时间 2024-01-01T00:00:00Z
+     */
+    private static final long EPOCH = 1704067200000L;
+
+    private static final int WORKER_BITS = 10;
+
+    private static final int SEQUENCE_BITS = 6;
+
+    /**
+     * 分片基因位数，订单最多可分 64 片
+     */
+    public static final int GENE_BITS = 6;
+
+    public static final int MAX_WORKER_ID = (1 << WORKER_BITS) - 1;
+
+    public static final int MAX_GENE = (1 << GENE_BITS) - 1;
+
+    /**
+     * 高位为相对时间戳，低 6 位为序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    @Value("${shop.order-no.worker-id:-1}")
+    private int configuredWorkerId;
+
+    @Value("${shop.node-id:shop-node-0}")
+    private String nodeId;
+
+    private long workerBits;
+
+    public OrderNoGenerator() {
+    }
+
+    public OrderNoGenerator(int workerId) {
+        setWorkerId(workerId);
+    }
+
+    @PostConstruct
+    public void init() {
+        int workerId = configuredWorkerId >= 0 ? configuredWorkerId : resolveWorkerId(nodeId);
+        setWorkerId(workerId);
+        logger.info("订单号生成器: nodeId={}, workerId={}", nodeId, workerId);
+    }
+
+    /**
+     * 生成下一个ID
+     *
+     * @param gene 分片基因 0-63，写入ID的低位
+     */
+    public long nextId(int gene) {
+        if (gene < 0 || gene > MAX_GENE) {
+            throw new IllegalArgumentException("分片基因超出范围 [0, " + MAX_GENE + "]: " + gene);
+        }
+        long now = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+        long prev;
+        long next;
+        do {
+            prev = state.get();
+            next = Math.max(prev + 1, now);
+        } while (!state.compareAndSet(prev, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (timestamp << (WORKER_BITS + SEQUENCE_BITS + GENE_BITS)) | workerBits | (sequence << GENE_BITS) | gene;
+    }
+
+    private void setWorkerId(int workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId 超出范围 [0, " + MAX_WORKER_ID + "]: " + workerId);
+        }
+        this.workerBits = (long) workerId << (SEQUENCE_BITS + GENE_BITS);
+    }
+
+    /**
+     * 由实例ID推导实例号：取末尾的 -序号（如 k8s StatefulSet 的 backend-3）。
+     * 不带序号的实例ID（如随机主机名）无法保证多实例唯一，直接启动失败，需配置 shop.order-no.worker-id。
+     */
+    static int resolveWorkerId(String nodeId) {
+        int end = nodeId.length();
+        int start = end;
+        while (start > 0 && Character.isDigit(nodeId.charAt(start - 1))) {
+            start--;
+        }
+        if (start > 0 && nodeId.charAt(start - 1) == '-' && start < end && end - start <= 4) {
+            int ordinal = Integer.parseInt(nodeId.substring(start, end));
+            if (ordinal <= MAX_WORKER_ID) {
+                return ordinal;
+            }
+        }
+        throw new IllegalStateException("实例ID不以 -序号 结尾，无法推导订单号实例号，请配置 shop.order-no.worker-id: "
+                + "nodeId=" + nodeId);
+    }
+}
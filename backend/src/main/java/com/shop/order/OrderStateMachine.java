@@ -0,0 +1,53 @@
+package com.shop.order;
+
+import com.shop.entity.Order;
+import com.shop.mapper.OrderMapper;
+import com.shop.sharding.OrderShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 订单状态机
+ * <p>
+ * 每次变更是一条带条件的 UPDATE（WHERE id、user_id、status 均匹配），只写状态和对应的时间字段；
+ * 按影响行数判断是否成功，并发的支付/取消只有一个能成功。失败时才查询一次订单，区分失败原因。
+ */
+@Component
+public class OrderStateMachine {
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private OrderShardRouter orderShardRouter;
+
+    /**
+     * 变更订单状态
+     *
+     * @param userId 订单所属用户，为null时不校验（管理员操作）
+     */
+    public TransitionResult transition(Long orderId, Long userId, OrderStatus from, OrderStatus to) {
+        if (!from.canTransitionTo(to)) {
+            return TransitionResult.INVALID_TRANSITION;
+        }
+        return orderShardRouter.onOrderShard(orderId, () -> update(orderId, userId, from, to));
+    }
+
+    private TransitionResult update(Long orderId, Long userId, OrderStatus from, OrderStatus to) {
+        int rows = orderMapper.updateStatus(orderId, userId, from.getCode(), to.getCode(), LocalDateTime.now());
+        if (rows > 0) {
+            return TransitionResult.SUCCESS;
+        }
+
+        Order order = orderMapper.selectById(orderId);
+        if (order == null) {
+            return TransitionResult.NOT_FOUND;
+        }
+        if (userId != null && !userId.equals(order.getUserId())) {
+            return TransitionResult.FORBIDDEN;
+        }
+        return TransitionResult.CONFLICT;
+    }
+}
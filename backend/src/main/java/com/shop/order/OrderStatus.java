@@ -0,0 +1,68 @@
+package com.shop.order;
+
+import com.shop.exception.BusinessException;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 订单状态及允许的状态变更
+ * <pre>
+ * 待付款 -> 已付款、已取消
+ * 已付款 -> 已发货、已取消
+ * 已发货 -> 已完成
+ * 已完成、已取消为终态
+ * </pre>
+ */
+public enum OrderStatus {
+
+    PENDING_PAYMENT(0, "待付款"),
+    PAID(1, "已付款"),
+    DELIVERED(2, "已发货"),
+    COMPLETED(3, "已完成"),
+    CANCELLED(4, "已取消");
+
+    private final int code;
+
+    private final String label;
+
+    OrderStatus(int code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * 是否允许变更为目标状态
+     */
+    public boolean canTransitionTo(OrderStatus target) {
+        return nextStatuses().contains(target);
+    }
+
+    private Set<OrderStatus> nextStatuses() {
+        return switch (this) {
+            case PENDING_PAYMENT -> EnumSet.of(PAID, CANCELLED);
+            case PAID -> EnumSet.of(DELIVERED, CANCELLED);
+            case DELIVERED -> EnumSet.of(COMPLETED);
+            case COMPLETED, CANCELLED -> EnumSet.noneOf(OrderStatus.class);
+        };
+    }
+
+    public static OrderStatus of(Integer code) {
+        if (code != null) {
+            for (OrderStatus status : values()) {
+                if (status.code == code) {
+                    return status;
+                }
+            }
+        }
+        throw new BusinessException("未知订单状态: " + code);
+    }
+}
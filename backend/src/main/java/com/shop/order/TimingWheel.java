@@ -0,0 +1,88 @@
+package com.shop.order;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 哈希时间轮
+ * <p>
+ * 按到期时间所在的刻度放入 tick % size 号槽位，推进时只检查经过的槽位，
+ * 添加和推进都与任务总数无关。由调用方定时调用 advance 驱动，不自带线程；非线程安全，由调用方加锁。
+ */
+public final class TimingWheel<T> {
+
+    private final long tickMillis;
+
+    private final int mask;
+
+    private final List<List<Entry<T>>> buckets;
+
+    /**
+     * 下一个待处理的刻度
+     */
+    private long currentTick;
+
+    private int size;
+
+    /**
+     * @param tickMillis 刻度长度，毫秒
+     * @param wheelSize  槽位数，须为2的幂
+     */
+    public TimingWheel(long tickMillis, int wheelSize, long now) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize 须为2的幂: " + wheelSize);
+        }
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.currentTick = now / tickMillis;
+    }
+
+    /**
+     * 添加任务，到期时间已过的在下一次推进时到期
+     */
+    public void add(T item, long deadline) {
+        long tick = Math.max(deadline / tickMillis, currentTick);
+        buckets.get((int) (tick & mask)).add(new Entry<>(item, tick));
+        size++;
+    }
+
+    /**
+     * 推进到当前时间，返回到期的任务
+     */
+    public List<T> advance(long now) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = now / tickMillis;
+        if (targetTick < currentTick) {
+            return expired;
+        }
+        // 停顿超过一圈时每个槽位只需检查一次
+        long steps = Math.min(targetTick - currentTick + 1, buckets.size());
+        for (long i = 0; i < steps; i++) {
+            List<Entry<T>> bucket = buckets.get((int) ((currentTick + i) & mask));
+            Iterator<Entry<T>> iterator = bucket.iterator();
+            while (iterator.hasNext()) {
+                Entry<T> entry = iterator.next();
+                // 同一槽位中还有后面几圈才到期的任务
+                if (entry.tick <= targetTick) {
+                    expired.add(entry.item);
+                    iterator.remove();
+                    size--;
+                }
+            }
+        }
+        currentTick = targetTick + 1;
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private record Entry<T>(T item, long tick) {
+    }
+}
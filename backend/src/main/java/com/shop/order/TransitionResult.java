@@ -0,0 +1,32 @@
+package com.shop.order;
+
+/**
+ * 订单状态变更结果
+ */
+public enum TransitionResult {
+
+    /**
+     * 变更成功
+     */
+    SUCCESS,
+
+    /**
+     * 订单不存在
+     */
+    NOT_FOUND,
+
+    /**
+     * 订单不属于该用户
+     */
+    FORBIDDEN,
+
+    /**
+     * 订单当前状态不是预期的起始状态（已被并发修改或状态不符）
+     */
+    CONFLICT,
+
+    /**
+     * 不允许的状态变更
+     */
+    INVALID_TRANSITION
+}
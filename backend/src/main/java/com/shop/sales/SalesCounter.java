@@ -0,0 +1,262 @@
+package com.shop.sales;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.shop.cache.ProductCache;
+import com.shop.entity.Product;
+import com.shop.mapper.ProductMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 商品销量计数器（写缓冲）
+ * <p>
+ * 销量只用于展示和排行，不再随库存一起更新商品行：下单/取消提交后累加到每个商品的未写回增量，
+ * 定时用一条批量 UPDATE 写回 sales 字段，正常停机时写回剩余增量（进程崩溃时丢失未写回的部分）。
+ * 另维护一份 数据库销量 + 未写回增量 的实时总数，用于热销排行，并定时与数据库对齐以包含其他实例的销量：
+ * 启动时全量加载，之后只重读 update_time 在上次对齐之后变化的商品。
+ * <p>
+ * 每个商品一个 {@link Sales}：未写回增量是 LongAdder，下单路径只做 add，不加锁；
+ * 已写入数据库的部分单独存为基数，写回时把取走的增量移入基数，对齐时只整体替换基数，不动增量，不会漏计或重复计入。
+ * 写回与对齐互斥。
+ */
+@Component
+public class SalesCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesCounter.class);
+
+    /**
+     * 增量对齐时向前多读的时间，覆盖应用与数据库的时钟偏差和较晚提交的写回
+     */
+    private static final Duration RELOAD_OVERLAP = Duration.ofMinutes(1);
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductCache productCache;
+
+    /**
+     * 每个商品的销量计数，只增不删（已删除的商品标记为不参与排行）
+     */
+    private final Map<Long, Sales> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 上次对齐开始的时间，为空时全量加载
+     */
+    private LocalDateTime lastReload;
+
+    /**
+     * 记录销量变化（取消订单时为负数）；在事务中调用时，提交后才计入
+     */
+    public void record(Map<Long, Integer> quantities) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(quantities);
+                }
+            });
+        } else {
+            apply(quantities);
+        }
+    }
+
+    /**
+     * 商品尚未写回数据库的销量增量
+     */
+    public long getPending(Long productId) {
+        Sales sales = counters.get(productId);
+        return sales == null ? 0 : sales.pending.sum();
+    }
+
+    /**
+     * 按实时销量取前 limit 个商品ID，按销量降序
+     */
+    public List<Long> topSellers(int limit) {
+        // 最小堆保留当前最大的 limit 个
+        PriorityQueue<Map.Entry<Long, Long>> heap = new PriorityQueue<>(limit + 1,
+                (a, b) -> a.getValue().equals(b.getValue())
+                        ? Long.compare(b.getKey(), a.getKey())
+                        : Long.compare(a.getValue(), b.getValue()));
+        for (Map.Entry<Long, Sales> entry : counters.entrySet()) {
+            if (!entry.getValue().listed) {
+                continue;
+            }
+            long sales = entry.getValue().total();
+            if (sales <= 0) {
+                continue;
+            }
+            heap.offer(Map.entry(entry.getKey(), sales));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Long> ids = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ids.add(heap.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    /**
+     * 商品的实时销量
+     */
+    public long getSales(Long productId) {
+        Sales sales = counters.get(productId);
+        return sales == null ? 0 : sales.total();
+    }
+
+    /**
+     * 启动完成后从数据库加载销量
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            // 不影响启动，等待定时对齐
+            logger.error("实时销量加载失败", e);
+        }
+    }
+
+    /**
+     * 定时把未写回的销量增量批量写入数据库
+     */
+    @Scheduled(fixedDelayString = "${shop.sales.flush-interval:5000}")
+    public synchronized void flush() {
+        // 按商品ID排序，固定加锁顺序；逐个取走增量移入基数，取走之后的累加留给下次写回
+        Map<Long, Long> deltas = new TreeMap<>();
+        for (Map.Entry<Long, Sales> entry : counters.entrySet()) {
+            Sales sales = entry.getValue();
+            long delta = sales.pending.sumThenReset();
+            if (delta != 0) {
+                sales.base.addAndGet(delta);
+                deltas.put(entry.getKey(), delta);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            productMapper.batchAddSales(new LinkedHashMap<>(deltas));
+            // 缓存中的销量不含已写回的增量，失效后重新读取，商品详情的销量不会回退
+            deltas.keySet().forEach(productCache::invalidate);
+            logger.debug("销量已写回: products={}", deltas.size());
+        } catch (RuntimeException e) {
+            // 写回失败，增量放回等待下次重试
+            deltas.forEach((productId, delta) -> {
+                Sales sales = counters.get(productId);
+                sales.base.addAndGet(-delta);
+                sales.pending.add(delta);
+            });
+            logger.error("销量写回失败: products={}", deltas.size(), e);
+        }
+    }
+
+    /**
+     * 从数据库重新对齐实时销量（包含其他实例已写回的销量）
+     */
+    @Scheduled(initialDelayString = "${shop.sales.reload-interval:60000}",
+            fixedDelayString = "${shop.sales.reload-interval:60000}")
+    public synchronized void reload() {
+        LocalDateTime start = LocalDateTime.now();
+        if (lastReload == null) {
+            LambdaQueryWrapper<Product> wrapper = new LambdaQueryWrapper<>();
+            wrapper.select(Product::getId, Product::getSales);
+            List<Product> products = productMapper.selectList(wrapper);
+            Set<Long> ids = new HashSet<>(products.size() * 2);
+            for (Product product : products) {
+                ids.add(product.getId());
+                replaceBase(product);
+            }
+            // 已删除的商品不再参与排行；计数保留，未写回的增量照常写回
+            counters.forEach((id, sales) -> sales.listed = ids.contains(id));
+            logger.info("实时销量已加载: products={}", products.size());
+        } else {
+            List<Product> products = productMapper.selectSalesChangedSince(lastReload.minus(RELOAD_OVERLAP));
+            for (Product product : products) {
+                if (Integer.valueOf(1).equals(product.getDeleted())) {
+                    counter(product.getId()).listed = false;
+                } else {
+                    replaceBase(product);
+                }
+            }
+            logger.debug("实时销量已对齐: products={}", products.size());
+        }
+        lastReload = start;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 用数据库销量替换商品的基数；数据库销量已包含本实例写回的全部增量，未写回的增量不受影响
+     */
+    private void replaceBase(Product product) {
+        Sales sales = counter(product.getId());
+        sales.base.set(product.getSales() == null ? 0 : product.getSales());
+        sales.listed = true;
+    }
+
+    private void apply(Map<Long, Integer> quantities) {
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            counter(entry.getKey()).pending.add(entry.getValue());
+        }
+    }
+
+    private Sales counter(Long productId) {
+        Sales sales = counters.get(productId);
+        return sales != null ? sales : counters.computeIfAbsent(productId, id -> new Sales());
+    }
+
+    /**
+     * 单个商品的销量：实时销量 = 基数 + 未写回增量
+     */
+    private static final class Sales {
+
+        /**
+         * 已写入数据库的销量（对齐时读到的数据库销量 + 之后本实例写回的增量）
+         */
+        private final AtomicLong base = new AtomicLong();
+
+        /**
+         * 尚未写回数据库的增量
+         */
+        private final LongAdder pending = new LongAdder();
+
+        /**
+         * 是否参与排行，商品删除后为 false
+         */
+        private volatile boolean listed = true;
+
+        private long total() {
+            return base.get() + pending.sum();
+        }
+    }
+}
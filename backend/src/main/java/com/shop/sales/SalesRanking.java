@@ -0,0 +1,431 @@
+package com.shop.sales;
+
+import com.shop.entity.OrderItem;
+import com.shop.entity.Product;
+import com.shop.exception.BusinessException;
+import com.shop.mapper.OrderItemMapper;
+import com.shop.mapper.ProductMapper;
+import com.shop.order.OrderEvent;
+import com.shop.sharding.OrderShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 滑动窗口热销排行
+ * <p>
+ * 每个窗口（1小时/24小时/7天）是一个按时间分桶的环形数组，桶内记录 商品ID -> 销量，
+ * 另维护窗口内的销量合计；时间推进时整桶过期并从合计中减去。下单、取消订单提交后实时累加/冲减。
+ * 定时从合计中按最小堆取出全站和各分类的前 K 名，生成不可变的排行快照，查询直接截取快照，O(K)。
+ * 商品所属分类在商品首次进入计数时读取，之后按较慢的周期刷新，生成快照时不访问数据库。
+ * <p>
+ * 出箱事件只投递到一个实例，实时计数只包含本实例收到的订单；多实例部署时靠定时从订单项全量重建窗口计数，
+ * 各实例的排行在重建后一致。重建期间收到的事件可能被遗漏或重复计入，下次重建时修正。
+ */
+@Component
+public class SalesRanking {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRanking.class);
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    /**
+     * 分类映射中表示商品没有分类（只进全站排行）
+     */
+    private static final long UNCATEGORIZED = -1L;
+
+    /**
+     * 分类映射中表示商品不存在或已删除（不进排行）
+     */
+    private static final long MISSING = -2L;
+
+    /**
+     * 每次读取分类的商品数，避免过大的 IN 查询
+     */
+    private static final int CATEGORY_BATCH_SIZE = 500;
+
+    /**
+     * 统计窗口
+     */
+    public enum Window {
+        HOUR("1h", 60_000L, 60),
+        DAY("24h", 900_000L, 96),
+        WEEK("7d", 3_600_000L, 168);
+
+        private final String code;
+
+        private final long bucketMillis;
+
+        private final int bucketCount;
+
+        Window(String code, long bucketMillis, int bucketCount) {
+            this.code = code;
+            this.bucketMillis = bucketMillis;
+            this.bucketCount = bucketCount;
+        }
+
+        public long getMillis() {
+            return bucketMillis * bucketCount;
+        }
+
+        public static Window of(String code) {
+            for (Window window : values()) {
+                if (window.code.equalsIgnoreCase(code)) {
+                    return window;
+                }
+            }
+            throw new BusinessException("不支持的统计窗口: " + code);
+        }
+    }
+
+    /**
+     * 排行条目
+     */
+    public record Entry(Long productId, long sales) {
+    }
+
+    @Autowired
+    private OrderItemMapper orderItemMapper;
+
+    @Autowired
+    private OrderShardRouter orderShardRouter;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Value("${shop.ranking.top-k:100}")
+    private int topK;
+
+    /**
+     * 窗口计数，读写都在 this 上加锁
+     */
+    private Map<Window, SlidingCounts> counts;
+
+    /**
+     * 商品ID -> 分类ID（或 UNCATEGORIZED、MISSING）
+     */
+    private final Map<Long, Long> categories = new ConcurrentHashMap<>();
+
+    private volatile Map<Window, Snapshot> snapshots = Collections.emptyMap();
+
+    public SalesRanking() {
+        counts = newCounts(System.currentTimeMillis());
+    }
+
+    /**
+     * 启动完成后从最近7天的订单预热
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            int items = rebuild();
+            logger.info("热销排行已预热: items={}", items);
+        } catch (RuntimeException e) {
+            // 不影响启动，排行从之后的订单开始累计
+            logger.error("热销排行预热失败", e);
+        }
+    }
+
+    /**
+     * 定时重建，同步其他实例收到的订单
+     */
+    @Scheduled(initialDelayString = "${shop.ranking.rebuild-interval:300000}",
+            fixedDelayString = "${shop.ranking.rebuild-interval:300000}")
+    public void scheduledRebuild() {
+        try {
+            int items = rebuild();
+            logger.debug("热销排行已重建: items={}", items);
+        } catch (RuntimeException e) {
+            logger.error("热销排行重建失败，沿用当前计数", e);
+        }
+    }
+
+    /**
+     * 按最近7天未取消订单的订单项重新计算各窗口计数，替换当前计数并刷新快照
+     *
+     * @return 读取的订单项数
+     */
+    private int rebuild() {
+        LocalDateTime since = LocalDateTime.now().minusNanos(Window.WEEK.getMillis() * 1_000_000L);
+        List<OrderItem> items = new ArrayList<>();
+        for (List<OrderItem> shardItems : orderShardRouter.scatter(() -> orderItemMapper.selectSoldSince(since))) {
+            items.addAll(shardItems);
+        }
+        long now = System.currentTimeMillis();
+        Map<Window, SlidingCounts> fresh = newCounts(now);
+        for (OrderItem item : items) {
+            long time = toMillis(item.getCreateTime());
+            for (SlidingCounts window : fresh.values()) {
+                window.add(time, item.getProductId(), item.getQuantity(), now);
+            }
+        }
+        synchronized (this) {
+            counts = fresh;
+        }
+        refresh();
+        return items.size();
+    }
+
+    /**
+     * 订单提交后更新窗口计数：下单累加，取消冲减到原订单所在的桶
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        if (event.getType() != OrderEvent.Type.CREATED && !event.getType().isCancellation()) {
+            return;
+        }
+        int sign = event.getType().isCancellation() ? -1 : 1;
+        long time = toMillis(event.getOrderTime());
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            for (OrderItem item : event.getItems()) {
+                add(time, item.getProductId(), sign * item.getQuantity(), now);
+            }
+        }
+    }
+
+    /**
+     * 查询排行
+     *
+     * @param categoryId 分类ID，为null时为全站排行
+     */
+    public List<Entry> top(Window window, Long categoryId, int limit) {
+        Snapshot snapshot = snapshots.get(window);
+        if (snapshot == null) {
+            return List.of();
+        }
+        List<Entry> entries = categoryId == null
+                ? snapshot.global
+                : snapshot.byCategory.getOrDefault(categoryId, List.of());
+        return entries.subList(0, Math.min(limit, entries.size()));
+    }
+
+    /**
+     * 定时推进窗口并重新计算排行快照
+     */
+    @Scheduled(fixedDelayString = "${shop.ranking.refresh-interval:1000}")
+    public void refresh() {
+        Map<Window, Map<Long, Long>> totals = new EnumMap<>(Window.class);
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<Window, SlidingCounts> entry : counts.entrySet()) {
+                entry.getValue().advance(now);
+                totals.put(entry.getKey(), new HashMap<>(entry.getValue().totals));
+            }
+        }
+
+        Map<Window, Snapshot> fresh = new EnumMap<>(Window.class);
+        for (Map.Entry<Window, Map<Long, Long>> entry : totals.entrySet()) {
+            fresh.put(entry.getKey(), buildSnapshot(entry.getValue()));
+        }
+        snapshots = fresh;
+    }
+
+    /**
+     * 定时刷新计数中商品的分类（商品改分类、删除），并移除已不在计数中的商品
+     */
+    @Scheduled(fixedDelayString = "${shop.ranking.category-refresh-interval:300000}")
+    public void refreshCategories() {
+        Set<Long> tracked = new HashSet<>();
+        synchronized (this) {
+            for (SlidingCounts window : counts.values()) {
+                tracked.addAll(window.totals.keySet());
+            }
+        }
+        categories.keySet().retainAll(tracked);
+        loadCategories(tracked);
+    }
+
+    private void add(long time, Long productId, long quantity, long now) {
+        for (SlidingCounts window : counts.values()) {
+            window.add(time, productId, quantity, now);
+        }
+    }
+
+    private static Map<Window, SlidingCounts> newCounts(long now) {
+        Map<Window, SlidingCounts> fresh = new EnumMap<>(Window.class);
+        for (Window window : Window.values()) {
+            fresh.put(window, new SlidingCounts(window, now));
+        }
+        return fresh;
+    }
+
+    /**
+     * 分批读取商品分类写入分类映射，只取ID和分类ID，不经过商品缓存
+     */
+    private void loadCategories(Collection<Long> productIds) {
+        List<Long> ids = new ArrayList<>(productIds);
+        for (int from = 0; from < ids.size(); from += CATEGORY_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + CATEGORY_BATCH_SIZE, ids.size()));
+            Map<Long, Long> loaded = new HashMap<>(batch.size() * 2);
+            for (Product product : productMapper.selectCategories(batch)) {
+                loaded.put(product.getId(), product.getCategoryId() == null ? UNCATEGORIZED : product.getCategoryId());
+            }
+            for (Long id : batch) {
+                categories.put(id, loaded.getOrDefault(id, MISSING));
+            }
+        }
+    }
+
+    private Snapshot buildSnapshot(Map<Long, Long> totals) {
+        // 只为首次进入计数的商品读取分类
+        List<Long> unknown = new ArrayList<>();
+        for (Long productId : totals.keySet()) {
+            if (!categories.containsKey(productId)) {
+                unknown.add(productId);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            loadCategories(unknown);
+        }
+
+        Map<Long, PriorityQueue<Entry>> categoryHeaps = new HashMap<>();
+        PriorityQueue<Entry> globalHeap = newHeap();
+        for (Map.Entry<Long, Long> entry : totals.entrySet()) {
+            long categoryId = categories.getOrDefault(entry.getKey(), MISSING);
+            if (categoryId == MISSING || entry.getValue() <= 0) {
+                continue;
+            }
+            Entry rank = new Entry(entry.getKey(), entry.getValue());
+            offer(globalHeap, rank);
+            if (categoryId != UNCATEGORIZED) {
+                offer(categoryHeaps.computeIfAbsent(categoryId, k -> newHeap()), rank);
+            }
+        }
+
+        Map<Long, List<Entry>> byCategory = new HashMap<>(categoryHeaps.size() * 2);
+        categoryHeaps.forEach((categoryId, heap) -> byCategory.put(categoryId, drain(heap)));
+        return new Snapshot(drain(globalHeap), Collections.unmodifiableMap(byCategory));
+    }
+
+    /**
+     * 最小堆：堆顶是当前前 K 名中最小的
+     */
+    private static PriorityQueue<Entry> newHeap() {
+        return new PriorityQueue<>((a, b) -> a.sales() != b.sales()
+                ? Long.compare(a.sales(), b.sales())
+                : Long.compare(b.productId(), a.productId()));
+    }
+
+    private void offer(PriorityQueue<Entry> heap, Entry entry) {
+        heap.offer(entry);
+        if (heap.size() > topK) {
+            heap.poll();
+        }
+    }
+
+    /**
+     * 取出堆中元素，按销量降序
+     */
+    private static List<Entry> drain(PriorityQueue<Entry> heap) {
+        List<Entry> entries = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            entries.add(heap.poll());
+        }
+        Collections.reverse(entries);
+        return Collections.unmodifiableList(entries);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? System.currentTimeMillis() : time.atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 排行快照（不可变）
+     */
+    private record Snapshot(List<Entry> global, Map<Long, List<Entry>> byCategory) {
+    }
+
+    /**
+     * 单个窗口的分桶计数，调用方负责加锁
+     */
+    private static final class SlidingCounts {
+
+        private final long bucketMillis;
+
+        private final int bucketCount;
+
+        /**
+         * 每个桶当前对应的时间片序号
+         */
+        private final long[] bucketSlots;
+
+        private final List<Map<Long, Long>> buckets;
+
+        private final Map<Long, Long> totals = new HashMap<>();
+
+        private long currentSlot;
+
+        private SlidingCounts(Window window, long now) {
+            this.bucketMillis = window.bucketMillis;
+            this.bucketCount = window.bucketCount;
+            this.bucketSlots = new long[bucketCount];
+            this.buckets = new ArrayList<>(bucketCount);
+            this.currentSlot = now / bucketMillis;
+            for (int i = 0; i < bucketCount; i++) {
+                buckets.add(new HashMap<>());
+            }
+            for (long slot = currentSlot - bucketCount + 1; slot <= currentSlot; slot++) {
+                bucketSlots[(int) Math.floorMod(slot, (long) bucketCount)] = slot;
+            }
+        }
+
+        /**
+         * 推进到当前时间，过期的桶从合计中减去后清空
+         */
+        private void advance(long now) {
+            long slot = now / bucketMillis;
+            if (slot <= currentSlot) {
+                return;
+            }
+            long from = Math.max(currentSlot + 1, slot - bucketCount + 1);
+            for (long s = from; s <= slot; s++) {
+                int index = (int) Math.floorMod(s, (long) bucketCount);
+                Map<Long, Long> bucket = buckets.get(index);
+                for (Map.Entry<Long, Long> entry : bucket.entrySet()) {
+                    merge(totals, entry.getKey(), -entry.getValue());
+                }
+                bucket.clear();
+                bucketSlots[index] = s;
+            }
+            currentSlot = slot;
+        }
+
+        private void add(long time, Long productId, long quantity, long now) {
+            advance(now);
+            // 时钟偏差导致的未来时间计入当前桶
+            long slot = Math.min(time / bucketMillis, currentSlot);
+            if (slot <= currentSlot - bucketCount) {
+                // 已滑出窗口
+                return;
+            }
+            int index = (int) Math.floorMod(slot, (long) bucketCount);
+            merge(buckets.get(index), productId, quantity);
+            merge(totals, productId, quantity);
+        }
+
+        private static void merge(Map<Long, Long> map, Long productId, long delta) {
+            map.merge(productId, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.shop.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.shop.entity.Product;
+import com.shop.mapper.ProductMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 商品搜索倒排索引（进程内）
+ * <p>
+ * 对商品名称和描述分词后建立 词 -> (商品ID -> 词频) 的倒排表，词典按字典序存放，支持英文单词前缀匹配。
+ * 相关度按 TF-IDF 计算，名称中的词权重高于描述，再按命中的查询词比例加权。
+ * 启动时从数据库全量构建，商品增删改提交后增量更新，另有定时全量重建兜底。
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    /**
+     * 名称中词的权重（描述为1）
+     */
+    private static final int NAME_WEIGHT = 3;
+
+    /**
+     * 前缀命中（非完整单词）的得分折扣
+     */
+    private static final double PREFIX_BOOST = 0.5;
+
+    /**
+     * 单个前缀最多展开的词数
+     */
+    private static final int MAX_PREFIX_EXPANSION = 64;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    private volatile Index index = new Index();
+
+    /**
+     * 全量重建期间发生变更的商品，重建完成后补做增量更新
+     */
+    private volatile Set<Long> changedDuringRebuild;
+
+    /**
+     * 启动完成后全量构建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // 不影响启动，等待定时重建
+            logger.error("商品搜索索引构建失败", e);
+        }
+    }
+
+    /**
+     * 从数据库全量重建索引，构建完成后原子替换
+     */
+    @Scheduled(initialDelayString = "${shop.search.rebuild-interval:600000}",
+            fixedDelayString = "${shop.search.rebuild-interval:600000}")
+    public void rebuild() {
+        Set<Long> changed = ConcurrentHashMap.newKeySet();
+        changedDuringRebuild = changed;
+
+        LambdaQueryWrapper<Product> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(Product::getId, Product::getName, Product::getDescription,
+                Product::getCategoryId, Product::getStatus);
+        Index fresh = new Index();
+        for (Product product : productMapper.selectList(wrapper)) {
+            fresh.put(product);
+        }
+        synchronized (this) {
+            index = fresh;
+            changedDuringRebuild = null;
+        }
+        for (Long id : changed) {
+            reindex(id);
+        }
+        logger.info("商品搜索索引已重建: products={}, terms={}", fresh.docs.size(), fresh.postings.size());
+    }
+
+    /**
+     * 商品增删改后调用：在事务中时提交后再更新，保证读到已提交的数据
+     */
+    public void reindexAfterCommit(Long productId) {
+        if (productId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reindex(productId);
+                }
+            });
+        } else {
+            reindex(productId);
+        }
+    }
+
+    /**
+     * 从数据库重新读取单个商品并更新索引，商品不存在（已删除）时从索引中移除
+     */
+    public void reindex(Long productId) {
+        Set<Long> changed = changedDuringRebuild;
+        if (changed != null) {
+            changed.add(productId);
+        }
+        Product product = productMapper.selectById(productId);
+        synchronized (this) {
+            if (product == null) {
+                index.remove(productId);
+            } else {
+                index.put(product);
+            }
+        }
+    }
+
+    /**
+     * 搜索商品
+     *
+     * @param categoryId 分类过滤，可为null
+     * @param status     状态过滤，可为null
+     * @return 按相关度降序排列的商品ID
+     */
+    public List<Long> search(String keyword, Long categoryId, Integer status) {
+        List<SearchTokenizer.Token> tokens = SearchTokenizer.queryTokens(keyword);
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Index current = index;
+        int docCount = Math.max(current.docs.size(), 1);
+
+        Map<Long, Hit> hits = new HashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            SearchTokenizer.Token token = tokens.get(i);
+            for (Map.Entry<String, Map<Long, Integer>> entry : current.match(token).entrySet()) {
+                Map<Long, Integer> posting = entry.getValue();
+                double idf = Math.log(1 + (double) docCount / Math.max(posting.size(), 1));
+                double boost = entry.getKey().equals(token.term()) ? 1 : PREFIX_BOOST;
+                for (Map.Entry<Long, Integer> doc : posting.entrySet()) {
+                    Hit hit = hits.computeIfAbsent(doc.getKey(), Hit::new);
+                    hit.score += doc.getValue() * idf * boost;
+                    if (hit.lastToken != i) {
+                        hit.lastToken = i;
+                        hit.matchedTokens++;
+                    }
+                }
+            }
+        }
+
+        List<Hit> ranked = new ArrayList<>(hits.size());
+        for (Hit hit : hits.values()) {
+            Doc doc = current.docs.get(hit.productId);
+            if (doc == null
+                    || (categoryId != null && !categoryId.equals(doc.categoryId))
+                    || (status != null && !status.equals(doc.status))) {
+                continue;
+            }
+            // 命中的查询词越多越靠前
+            hit.score *= (double) hit.matchedTokens / tokens.size();
+            ranked.add(hit);
+        }
+        ranked.sort((a, b) -> a.score != b.score
+                ? Double.compare(b.score, a.score)
+                : Long.compare(b.productId, a.productId));
+
+        List<Long> ids = new ArrayList<>(ranked.size());
+        for (Hit hit : ranked) {
+            ids.add(hit.productId);
+        }
+        return ids;
+    }
+
+    /**
+     * 倒排索引数据；修改在 ProductSearchIndex 的锁内进行，读取无需加锁
+     */
+    private static final class Index {
+
+        private final NavigableMap<String, Map<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+
+        private final Map<Long, Doc> docs = new ConcurrentHashMap<>();
+
+        private void put(Product product) {
+            remove(product.getId());
+
+            Map<String, Integer> terms = new HashMap<>();
+            SearchTokenizer.termFrequencies(product.getName())
+                    .forEach((term, count) -> terms.merge(term, count * NAME_WEIGHT, Integer::sum));
+            SearchTokenizer.termFrequencies(product.getDescription())
+                    .forEach((term, count) -> terms.merge(term, count, Integer::sum));
+
+            docs.put(product.getId(), new Doc(product.getCategoryId(), product.getStatus(), terms));
+            for (Map.Entry<String, Integer> entry : terms.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new ConcurrentHashMap<>())
+                        .put(product.getId(), entry.getValue());
+            }
+        }
+
+        private void remove(Long productId) {
+            Doc doc = docs.remove(productId);
+            if (doc == null) {
+                return;
+            }
+            for (String term : doc.terms.keySet()) {
+                postings.computeIfPresent(term, (k, posting) -> {
+                    posting.remove(productId);
+                    return posting.isEmpty() ? null : posting;
+                });
+            }
+        }
+
+        /**
+         * 查询词命中的倒排表：完整匹配，英文单词另加前缀匹配
+         */
+        private Map<String, Map<Long, Integer>> match(SearchTokenizer.Token token) {
+            if (!token.prefix()) {
+                Map<Long, Integer> posting = postings.get(token.term());
+                return posting == null ? Map.of() : Map.of(token.term(), posting);
+            }
+            Map<String, Map<Long, Integer>> matched = new HashMap<>();
+            for (Map.Entry<String, Map<Long, Integer>> entry
+                    : postings.subMap(token.term(), true, token.term() + Character.MAX_VALUE, false).entrySet()) {
+                matched.put(entry.getKey(), entry.getValue());
+                if (matched.size() >= MAX_PREFIX_EXPANSION) {
+                    break;
+                }
+            }
+            return matched;
+        }
+    }
+
+    /**
+     * 已索引的商品
+     */
+    private record Doc(Long categoryId, Integer status, Map<String, Integer> terms) {
+    }
+
+    /**
+     * 单个商品的搜索得分
+     */
+    private static final class Hit {
+
+        private final Long productId;
+
+        private double score;
+
+        private int matchedTokens;
+
+        private int lastToken = -1;
+
+        private Hit(Long productId) {
+            this.productId = productId;
+        }
+    }
+}
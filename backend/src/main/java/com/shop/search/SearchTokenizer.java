@@ -0,0 +1,94 @@
+package com.shop.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 商品搜索分词
+ * <p>
+ * 中文（汉字）按单字和相邻两字（bigram）切分，其他字母数字按连续的单词切分并转小写，
+ * 其余字符作为分隔符。索引和查询使用同一套规则。
+ */
+final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 文档分词：返回 词 -> 出现次数
+     */
+    static Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> terms = new HashMap<>();
+        for (Token token : tokenize(text)) {
+            terms.merge(token.term(), 1, Integer::sum);
+        }
+        return terms;
+    }
+
+    /**
+     * 查询分词：去重，英文单词和数字按前缀匹配
+     */
+    static List<Token> queryTokens(String text) {
+        Map<String, Token> tokens = new LinkedHashMap<>();
+        for (Token token : tokenize(text)) {
+            tokens.putIfAbsent(token.term(), token);
+        }
+        return new ArrayList<>(tokens.values());
+    }
+
+    private static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = text.codePointAt(i);
+            if (Character.isIdeographic(codePoint)) {
+                // 连续汉字：每个字一个词，再加上与下一个字组成的两字词
+                int start = i;
+                while (i < length && Character.isIdeographic(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                String run = text.substring(start, i);
+                int prev = -1;
+                for (int j = 0; j < run.length(); ) {
+                    int next = j + Character.charCount(run.codePointAt(j));
+                    tokens.add(new Token(run.substring(j, next), false));
+                    if (prev >= 0) {
+                        tokens.add(new Token(run.substring(prev, next), false));
+                    }
+                    prev = j;
+                    j = next;
+                }
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                int start = i;
+                while (i < length) {
+                    int c = text.codePointAt(i);
+                    if (!Character.isLetterOrDigit(c) || Character.isIdeographic(c)) {
+                        break;
+                    }
+                    i += Character.charCount(c);
+                }
+                tokens.add(new Token(text.substring(start, i).toLowerCase(Locale.ROOT), true));
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 分词结果
+     *
+     * @param term   词
+     * @param prefix 查询时是否按前缀匹配
+     */
+    record Token(String term, boolean prefix) {
+    }
+}
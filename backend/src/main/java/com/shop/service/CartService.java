@@ -5,6 +5,7 @@ import com.shop.entity.Cart;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 购物车服务接口
@@ -16,6 +17,14 @@ public interface CartService extends IService<Cart> {
      */
     List<Cart> getCartList(Long userId);
 
+    /**
+     * 购物车页数据：购物车列表与合计一次返回
+     *
+     * @return 包含 items（购物车项，含商品信息和小计）、totalQuantity（商品总件数）、
+     *         checkedCount（选中项数）、checkedQuantity（选中件数）、totalAmount（选中金额合计）
+     */
+    Map<String, Object> getCartView(Long userId);
+
     /**
      * 添加商品到购物车
      */
@@ -55,4 +64,9 @@ public interface CartService extends IService<Cart> {
      * 获取选中的购物车项
      */
     List<Cart> getCheckedCartItems(Long userId);
+
+    /**
+     * 删除已下单的购物车项（在下单事务中调用）
+     */
+    boolean removeCheckedOut(Long userId, List<Long> cartIds);
 }
@@ -2,8 +2,13 @@ package com.shop.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.shop.common.CursorPage;
 import com.shop.entity.Order;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * 订单服务接口
  */
@@ -17,13 +22,33 @@ public interface OrderService extends IService<Order> {
 
     /**
      * 分页查询用户订单
+     *
+     * @param withItems 是否填充订单项，为false时只返回订单头
      */
-    IPage<Order> getUserOrders(Long userId, Integer status, Integer pageNum, Integer pageSize);
+    IPage<Order> getUserOrders(Long userId, Integer status, Integer pageNum, Integer pageSize,
+                               boolean withItems);
 
     /**
      * 分页查询所有订单（管理员）
+     *
+     * @param withItems 是否填充订单项，为false时只返回订单头
+     */
+    IPage<Order> getAllOrders(Integer status, Integer pageNum, Integer pageSize, boolean withItems);
+
+    /**
+     * 游标分页查询用户订单，按创建时间倒序
+     *
+     * @param cursor    上一页返回的游标，为空表示第一页
+     * @param withTotal 第一页时是否同时返回总条数
+     */
+    CursorPage<Order> scrollUserOrders(Long userId, Integer status, String cursor, Integer size,
+                                       boolean withItems, boolean withTotal);
+
+    /**
+     * 游标分页查询所有订单（管理员）
      */
-    IPage<Order> getAllOrders(Integer status, Integer pageNum, Integer pageSize);
+    CursorPage<Order> scrollAllOrders(Integer status, String cursor, Integer size,
+                                      boolean withItems, boolean withTotal);
 
     /**
      * 获取订单详情
@@ -54,4 +79,12 @@ public interface OrderService extends IService<Order> {
      * 更新订单状态（管理员）
      */
     boolean updateOrderStatus(Long orderId, Integer status);
+
+    /**
+     * 批量关闭超时未付款的订单，并批量恢复库存
+     *
+     * @param deadline 只关闭创建时间不晚于该时间的订单
+     * @return 实际关闭的订单ID（期间已支付或已取消的订单不在其中）
+     */
+    List<Long> expireOrders(Collection<Long> orderIds, LocalDateTime deadline);
 }
@@ -2,8 +2,13 @@ package com.shop.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.shop.common.CursorPage;
 import com.shop.entity.Product;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 商品服务接口
  */
@@ -15,18 +20,77 @@ public interface ProductService extends IService<Product> {
     IPage<Product> getProductPage(Integer pageNum, Integer pageSize, 
                                    String name, Long categoryId, Integer status);
 
+    /**
+     * 游标分页查询商品，按创建时间倒序
+     *
+     * @param cursor    上一页返回的游标，为空表示第一页
+     * @param withTotal 第一页时是否同时返回总条数
+     */
+    CursorPage<Product> scrollProducts(String cursor, Integer size, String name, Long categoryId,
+                                       Integer status, boolean withTotal);
+
+    /**
+     * 全文搜索商品（名称、描述），按相关度排序
+     */
+    IPage<Product> searchProducts(String keyword, Long categoryId, Integer status,
+                                  Integer pageNum, Integer pageSize);
+
     /**
      * 获取商品详情
      */
     Product getProductDetail(Long id);
 
+    /**
+     * 商品详情页数据：详情与同类热销一次返回
+     *
+     * @param relatedLimit 同类热销数量
+     * @return 包含 product（商品详情）和 related（同分类近7天热销，不含本商品）
+     */
+    Map<String, Object> getProductDetailView(Long id, Integer relatedLimit);
+
+    /**
+     * 批量查询商品，返回 商品ID -> 商品 的映射（不存在的ID不出现在结果中）
+     */
+    Map<Long, Product> getProductMap(Collection<Long> ids);
+
+    /**
+     * 热销商品（按实时销量降序，只含上架商品）
+     */
+    List<Product> getTopSellers(Integer limit);
+
+    /**
+     * 时间窗口内的热销排行（只含上架商品）
+     *
+     * @param window     统计窗口：1h、24h、7d
+     * @param categoryId 分类ID，为空时为全站排行
+     * @return 每项包含 product（商品）和 sales（窗口内销量）
+     */
+    List<Map<String, Object>> getRanking(String window, Long categoryId, Integer limit);
+
+    /**
+     * 商品缓存统计
+     */
+    Map<String, Object> getCacheStats();
+
     /**
      * 扣减库存
      */
     boolean reduceStock(Long productId, Integer quantity);
 
+    /**
+     * 批量扣减多个商品的库存（key: 商品ID, value: 数量）
+     * <p>
+     * 按商品ID升序加锁，任一商品库存不足时抛出 StockShortageException，并列出所有不足的商品
+     */
+    void reduceStocks(Map<Long, Integer> quantities);
+
     /**
      * 恢复库存
      */
     boolean restoreStock(Long productId, Integer quantity);
+
+    /**
+     * 批量恢复多个商品的库存（key: 商品ID, value: 数量），按商品ID升序加锁
+     */
+    void restoreStocks(Map<Long, Integer> quantities);
 }
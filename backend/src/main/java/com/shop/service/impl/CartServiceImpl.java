@@ -3,22 +3,33 @@ package com.shop.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.shop.cache.CartCache;
+import com.shop.cache.CartCache.UserCart;
 import com.shop.entity.Cart;
 import com.shop.entity.Product;
 import com.shop.exception.BusinessException;
 import com.shop.mapper.CartMapper;
 import com.shop.service.CartService;
 import com.shop.service.ProductService;
+import com.shop.stock.StockReservationEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 购物车服务实现类
+ * <p>
+ * 开启购物车缓存（shop.cart.cache.enabled）时读写走 {@link CartCache}，数量和选中状态异步合并写回。
  */
 @Service
 public class CartServiceImpl extends ServiceImpl<CartMapper, Cart> implements CartService {
@@ -28,25 +39,56 @@ public class CartServiceImpl extends ServiceImpl<CartMapper, Cart> implements Ca
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private CartCache cartCache;
+
+    @Autowired
+    private StockReservationEngine stockReservationEngine;
+
     @Override
     public List<Cart> getCartList(Long userId) {
         logger.info("获取用户购物车列表: userId={}", userId);
         
+        if (cartCache.isEnabled()) {
+            List<Cart> cartList = cachedItems(userId);
+            fillProducts(cartList);
+            return cartList;
+        }
+        
         LambdaQueryWrapper<Cart> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(Cart::getUserId, userId)
                 .orderByDesc(Cart::getCreateTime);
         List<Cart> cartList = list(wrapper);
         
-        // 填充商品信息
+        fillProducts(cartList);
+        return cartList;
+    }
+
+    @Override
+    public Map<String, Object> getCartView(Long userId) {
+        List<Cart> cartList = getCartList(userId);
+
+        // 一次遍历算出全部合计
+        int totalQuantity = 0;
+        int checkedCount = 0;
+        int checkedQuantity = 0;
+        BigDecimal totalAmount = BigDecimal.ZERO;
         for (Cart cart : cartList) {
-            Product product = productService.getById(cart.getProductId());
-            if (product != null) {
-                cart.setProduct(product);
-                cart.setSubtotal(product.getPrice().multiply(BigDecimal.valueOf(cart.getQuantity())));
+            totalQuantity += cart.getQuantity();
+            if (Integer.valueOf(1).equals(cart.getChecked()) && cart.getSubtotal() != null) {
+                checkedCount++;
+                checkedQuantity += cart.getQuantity();
+                totalAmount = totalAmount.add(cart.getSubtotal());
             }
         }
-        
-        return cartList;
+
+        Map<String, Object> view = new HashMap<>();
+        view.put("items", cartList);
+        view.put("totalQuantity", totalQuantity);
+        view.put("checkedCount", checkedCount);
+        view.put("checkedQuantity", checkedQuantity);
+        view.put("totalAmount", totalAmount);
+        return view;
     }
 
     @Override
@@ -61,10 +103,14 @@ public class CartServiceImpl extends ServiceImpl<CartMapper, Cart> implements Ca
         if (product.getStatus() == 0) {
             throw new BusinessException("商品已下架");
         }
-        if (product.getStock() < quantity) {
+        if (!inStock(product, quantity)) {
             throw new BusinessException("库存不足");
         }
         
+        if (cartCache.isEnabled()) {
+            return addToCachedCart(userId, product, quantity);
+        }
+        
         // 检查购物车中是否已有该商品
         LambdaQueryWrapper<Cart> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(Cart::getUserId, userId)
@@ -74,7 +120,7 @@ public class CartServiceImpl extends ServiceImpl<CartMapper, Cart> implements Ca
         if (existCart != null) {
             // 已存在，增加数量
             int newQuantity = existCart.getQuantity() + quantity;
-            if (newQuantity > product.getStock()) {
+            if (!inStock(product, newQuantity)) {
                 throw new BusinessException("库存不足");
             }
             existCart.setQuantity(newQuantity);
@@ -98,6 +144,10 @@ public class CartServiceImpl extends ServiceImpl<CartMapper, Cart> implements Ca
     public boolean updateQuantity(Long userId, Long cartId, Integer quantity) {
         logger.info("更新购物车商品数量: userId={}, cartId={}, quantity={}", userId, cartId, quantity);
         
+        if (cartCache.isEnabled()) {
+            return updateCachedQuantity(userId, cartId, quantity);
+        }
+        
         Cart cart = getById(cartId);
         if (cart == null || !cart.getUserId().equals(userId)) {
             throw new BusinessException("购物车项不存在");
@@ -108,7 +158,7 @@ public class CartServiceImpl extends ServiceImpl<CartMapper, Cart> implements Ca
         if (product == null) {
             throw new BusinessException("商品不存在");
         }
-        if (quantity > product.getStock()) {
+        if (!inStock(product, quantity)) {
             throw new BusinessException("库存不足");
         }
         
@@ -123,7 +173,21 @@ public class CartServiceImpl extends ServiceImpl<CartMapper, Cart> implements Ca
         LambdaQueryWrapper<Cart> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(Cart::getId, cartId)
                 .eq(Cart::getUserId, userId);
-        return remove(wrapper);
+        if (!cartCache.isEnabled()) {
+            return remove(wrapper);
+        }
+        
+        // 删除同步写库，同时丢弃该项未写回的修改
+        UserCart userCart = cartCache.get(userId);
+        userCart.lock();
+        try {
+            boolean removed = remove(wrapper);
+            userCart.removeIf(List.of(cartId));
+            cartCache.discard(List.of(cartId));
+            return removed;
+        } finally {
+            userCart.unlock();
+        }
     }
 
     @Override
@@ -132,13 +196,42 @@ public class CartServiceImpl extends ServiceImpl<CartMapper, Cart> implements Ca
         
         LambdaQueryWrapper<Cart> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(Cart::getUserId, userId);
-        return remove(wrapper);
+        if (!cartCache.isEnabled()) {
+            return remove(wrapper);
+        }
+        
+        UserCart userCart = cartCache.get(userId);
+        userCart.lock();
+        try {
+            boolean removed = remove(wrapper);
+            cartCache.discard(userCart.items().stream().map(Cart::getId).toList());
+            userCart.clear();
+            return removed;
+        } finally {
+            userCart.unlock();
+        }
     }
 
     @Override
     public boolean updateChecked(Long userId, Long cartId, Integer checked) {
         logger.info("更新选中状态: userId={}, cartId={}, checked={}", userId, cartId, checked);
         
+        if (cartCache.isEnabled()) {
+            UserCart userCart = cartCache.get(userId);
+            userCart.lock();
+            try {
+                Cart item = userCart.findById(cartId);
+                if (item == null) {
+                    return false;
+                }
+                item.setChecked(checked);
+                cartCache.markDirty(item);
+                return true;
+            } finally {
+                userCart.unlock();
+            }
+        }
+        
         LambdaUpdateWrapper<Cart> wrapper = new LambdaUpdateWrapper<>();
         wrapper.eq(Cart::getId, cartId)
                 .eq(Cart::getUserId, userId)
@@ -150,6 +243,20 @@ public class CartServiceImpl extends ServiceImpl<CartMapper, Cart> implements Ca
     public boolean checkAll(Long userId, Integer checked) {
         logger.info("全选/取消全选: userId={}, checked={}", userId, checked);
         
+        if (cartCache.isEnabled()) {
+            UserCart userCart = cartCache.get(userId);
+            userCart.lock();
+            try {
+                for (Cart item : userCart.items()) {
+                    item.setChecked(checked);
+                    cartCache.markDirty(item);
+                }
+                return true;
+            } finally {
+                userCart.unlock();
+            }
+        }
+        
         LambdaUpdateWrapper<Cart> wrapper = new LambdaUpdateWrapper<>();
         wrapper.eq(Cart::getUserId, userId)
                 .set(Cart::getChecked, checked);
@@ -161,11 +268,10 @@ public class CartServiceImpl extends ServiceImpl<CartMapper, Cart> implements Ca
         List<Cart> checkedItems = getCheckedCartItems(userId);
         BigDecimal total = BigDecimal.ZERO;
         
+        // 小计已在填充商品信息时算出
         for (Cart cart : checkedItems) {
-            if (cart.getProduct() != null) {
-                BigDecimal subtotal = cart.getProduct().getPrice()
-                        .multiply(BigDecimal.valueOf(cart.getQuantity()));
-                total = total.add(subtotal);
+            if (cart.getSubtotal() != null) {
+                total = total.add(cart.getSubtotal());
             }
         }
         
@@ -176,20 +282,143 @@ public class CartServiceImpl extends ServiceImpl<CartMapper, Cart> implements Ca
     public List<Cart> getCheckedCartItems(Long userId) {
         logger.info("获取选中的购物车项: userId={}", userId);
         
+        if (cartCache.isEnabled()) {
+            List<Cart> cartList = cachedItems(userId);
+            cartList.removeIf(cart -> !Integer.valueOf(1).equals(cart.getChecked()));
+            fillProducts(cartList);
+            return cartList;
+        }
+        
         LambdaQueryWrapper<Cart> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(Cart::getUserId, userId)
                 .eq(Cart::getChecked, 1);
         List<Cart> cartList = list(wrapper);
         
-        // 填充商品信息
+        fillProducts(cartList);
+        return cartList;
+    }
+
+    @Override
+    public boolean removeCheckedOut(Long userId, List<Long> cartIds) {
+        boolean removed = removeByIds(cartIds);
+        if (cartCache.isEnabled()) {
+            // 下单事务提交后重新加载；这些项未写回的修改写回时不会命中任何行
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        cartCache.invalidate(userId);
+                    }
+                });
+            } else {
+                cartCache.invalidate(userId);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 从缓存读取用户购物车的副本
+     */
+    private List<Cart> cachedItems(Long userId) {
+        UserCart userCart = cartCache.get(userId);
+        userCart.lock();
+        try {
+            return userCart.snapshot();
+        } finally {
+            userCart.unlock();
+        }
+    }
+
+    /**
+     * 缓存模式下加入购物车：已有的商品只改内存中的数量，新商品同步写库取得ID
+     */
+    private Cart addToCachedCart(Long userId, Product product, Integer quantity) {
+        UserCart userCart = cartCache.get(userId);
+        userCart.lock();
+        try {
+            Cart existCart = userCart.findByProduct(product.getId());
+            if (existCart != null) {
+                int newQuantity = existCart.getQuantity() + quantity;
+                if (!inStock(product, newQuantity)) {
+                    throw new BusinessException("库存不足");
+                }
+                existCart.setQuantity(newQuantity);
+                cartCache.markDirty(existCart);
+                logger.info("更新购物车商品数量: cartId={}, newQuantity={}", existCart.getId(), newQuantity);
+                return UserCart.copy(existCart);
+            }
+            
+            Cart cart = new Cart();
+            cart.setUserId(userId);
+            cart.setProductId(product.getId());
+            cart.setQuantity(quantity);
+            cart.setChecked(1);
+            try {
+                save(cart);
+            } catch (DuplicateKeyException e) {
+                // 缓存之外（如其他实例）已加入该商品，缓存已过时
+                cartCache.invalidate(userId);
+                throw new BusinessException("购物车已变化，请刷新后重试");
+            }
+            userCart.add(cart);
+            logger.info("新增购物车商品: cartId={}", cart.getId());
+            return cart;
+        } finally {
+            userCart.unlock();
+        }
+    }
+
+    private boolean updateCachedQuantity(Long userId, Long cartId, Integer quantity) {
+        UserCart userCart = cartCache.get(userId);
+        userCart.lock();
+        try {
+            Cart item = userCart.findById(cartId);
+            if (item == null) {
+                throw new BusinessException("购物车项不存在");
+            }
+            Product product = productService.getById(item.getProductId());
+            if (product == null) {
+                throw new BusinessException("商品不存在");
+            }
+            if (!inStock(product, quantity)) {
+                throw new BusinessException("库存不足");
+            }
+            item.setQuantity(quantity);
+            cartCache.markDirty(item);
+            return true;
+        } finally {
+            userCart.unlock();
+        }
+    }
+
+    /**
+     * 填充商品信息：收集全部商品ID后批量查询，再在内存中关联
+     */
+    private void fillProducts(List<Cart> cartList) {
+        if (cartList.isEmpty()) {
+            return;
+        }
+        
+        List<Long> productIds = new ArrayList<>(cartList.size());
+        for (Cart cart : cartList) {
+            productIds.add(cart.getProductId());
+        }
+        Map<Long, Product> productMap = productService.getProductMap(productIds);
+        
         for (Cart cart : cartList) {
-            Product product = productService.getById(cart.getProductId());
+            Product product = productMap.get(cart.getProductId());
             if (product != null) {
                 cart.setProduct(product);
                 cart.setSubtotal(product.getPrice().multiply(BigDecimal.valueOf(cart.getQuantity())));
             }
         }
-        
-        return cartList;
+    }
+
+    /**
+     * 加购时的库存校验；库存额度模式下 product.stock 只是尚未分配给各节点的余量，不在加购时判断
+     */
+    private boolean inStock(Product product, int quantity) {
+        return stockReservationEngine.isEnabled() || product.getStock() >= quantity;
     }
 }
@@ -1,30 +1,110 @@
 package com.shop.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.shop.cache.CategorySnapshot;
 import com.shop.entity.Category;
 import com.shop.mapper.CategoryMapper;
 import com.shop.service.CategoryService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
  * 分类服务实现类
+ * <p>
+ * 分类读取走内存快照，增删改后重建快照并原子替换；
+ * 另有定时刷新，用于同步其他实例上的修改。
  */
 @Service
 public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> implements CategoryService {
 
     private static final Logger logger = LoggerFactory.getLogger(CategoryServiceImpl.class);
 
+    private volatile CategorySnapshot snapshot;
+
     @Override
     public List<Category> getEnabledCategories() {
-        logger.info("获取所有启用的分类");
-        LambdaQueryWrapper<Category> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Category::getStatus, 1)
-                .orderByAsc(Category::getSort);
-        return list(wrapper);
+        return getSnapshot().getEnabledCategories();
+    }
+
+    @Override
+    public Category getById(Serializable id) {
+        if (id == null) {
+            return null;
+        }
+        Category category = getSnapshot().get(Long.valueOf(id.toString()));
+        if (category == null) {
+            // 快照中没有（可能是其他实例刚新增的），回源数据库
+            category = super.getById(id);
+        }
+        return category;
+    }
+
+    @Override
+    public boolean save(Category entity) {
+        boolean result = super.save(entity);
+        refreshAfterCommit();
+        return result;
+    }
+
+    @Override
+    public boolean updateById(Category entity) {
+        boolean result = super.updateById(entity);
+        refreshAfterCommit();
+        return result;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        refreshAfterCommit();
+        return result;
+    }
+
+    /**
+     * 重新加载分类快照
+     */
+    @Scheduled(initialDelayString = "${shop.cache.category.refresh-interval:300000}",
+            fixedDelayString = "${shop.cache.category.refresh-interval:300000}")
+    public void refresh() {
+        CategorySnapshot newSnapshot = CategorySnapshot.of(list());
+        snapshot = newSnapshot;
+        logger.debug("分类快照已刷新: enabled={}", newSnapshot.getEnabledCategories().size());
+    }
+
+    private CategorySnapshot getSnapshot() {
+        CategorySnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    refresh();
+                    current = snapshot;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 在事务中修改时，提交后再刷新，保证快照读到已提交的数据
+     */
+    private void refreshAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh();
+                }
+            });
+        } else {
+            refresh();
+        }
     }
 }
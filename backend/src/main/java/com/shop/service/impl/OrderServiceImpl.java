@@ -4,27 +4,48 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.shop.common.CursorPage;
 import com.shop.entity.Cart;
 import com.shop.entity.Order;
 import com.shop.entity.OrderItem;
 import com.shop.entity.Product;
 import com.shop.exception.BusinessException;
+import com.shop.exception.StockShortageException;
+import com.shop.mapper.OrderArchiveMapper;
 import com.shop.mapper.OrderItemMapper;
 import com.shop.mapper.OrderMapper;
+import com.shop.metrics.ShopMetrics;
+import com.shop.order.OrderCommitPipeline;
+import com.shop.order.OrderEvent;
+import com.shop.order.OrderEventOutbox;
+import com.shop.order.OrderStateMachine;
+import com.shop.order.OrderStatus;
+import com.shop.order.TransitionResult;
+import com.shop.order.OrderNoGenerator;
 import com.shop.service.CartService;
 import com.shop.service.OrderService;
 import com.shop.service.ProductService;
+import com.shop.sharding.OrderShardContext;
+import com.shop.sharding.OrderShardRouter;
+import com.shop.stock.StockReservationEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
  * 订单服务实现类
@@ -34,6 +55,12 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
 
     private static final Logger logger = LoggerFactory.getLogger(OrderServiceImpl.class);
 
+    /**
+     * 订单列表顺序：按 (create_time, id) 倒序
+     */
+    private static final Comparator<Order> NEWEST_FIRST =
+            Comparator.comparing(Order::getCreateTime).thenComparing(Order::getId).reversed();
+
     @Autowired
     private CartService cartService;
 
@@ -43,12 +70,70 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     @Autowired
     private OrderItemMapper orderItemMapper;
 
+    @Autowired
+    private OrderCommitPipeline orderCommitPipeline;
+
+    @Autowired
+    private OrderNoGenerator orderNoGenerator;
+
+    @Autowired
+    private StockReservationEngine stockReservationEngine;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OrderEventOutbox orderEventOutbox;
+
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+
+    @Autowired
+    private ShopMetrics shopMetrics;
+
+    @Autowired
+    private OrderShardRouter orderShardRouter;
+
+    @Autowired
+    private OrderArchiveMapper orderArchiveMapper;
+
+    @Value("${shop.order.sharding.max-merge-rows:10000}")
+    private long maxMergeRows;
+
+    @Value("${shop.order.archive.enabled:false}")
+    private boolean archiveEnabled;
+
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public Order createOrder(Long userId, String receiverName, String receiverPhone,
                              String receiverAddress, String remark) {
         logger.info("创建订单: userId={}", userId);
 
+        try {
+            Order order;
+            // 组提交模式下与其他下单合并到同一个事务中提交；下单失败只回滚到保存点，预占的库存额度需主动退回
+            if (orderCommitPipeline.isEnabled()) {
+                order = orderCommitPipeline.submit(() -> stockReservationEngine.releasingOnFailure(
+                        () -> placeOrder(userId, receiverName, receiverPhone, receiverAddress, remark)));
+            } else {
+                order = transactionTemplate.execute(
+                        status -> placeOrder(userId, receiverName, receiverPhone, receiverAddress, remark));
+            }
+            shopMetrics.checkout("success");
+            return order;
+        } catch (BusinessException e) {
+            shopMetrics.checkout("rejected");
+            throw e;
+        } catch (RuntimeException e) {
+            shopMetrics.checkout("failure");
+            throw e;
+        }
+    }
+
+    /**
+     * 下单：需在事务中执行
+     */
+    private Order placeOrder(Long userId, String receiverName, String receiverPhone,
+                             String receiverAddress, String remark) {
         // 获取选中的购物车项
         List<Cart> cartItems = cartService.getCheckedCartItems(userId);
         if (cartItems.isEmpty()) {
@@ -65,58 +150,77 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             if (product.getStatus() == 0) {
                 throw new BusinessException("商品【" + product.getName() + "】已下架");
             }
-            if (product.getStock() < cart.getQuantity()) {
+            // 库存额度模式下 product.stock 只是尚未分配给各节点的余量，是否足够由 reduceStocks 判定
+            if (!stockReservationEngine.isEnabled() && product.getStock() < cart.getQuantity()) {
                 throw new BusinessException("商品【" + product.getName() + "】库存不足");
             }
             totalAmount = totalAmount.add(cart.getSubtotal());
         }
 
-        // 生成订单号
-        String orderNo = generateOrderNo();
+        // 生成订单ID（带用户的分片基因），订单号即订单ID的十进制
+        long orderId = orderNoGenerator.nextId(OrderShardRouter.gene(userId));
+        String orderNo = Long.toString(orderId);
 
         // 创建订单
         Order order = new Order();
+        order.setId(orderId);
         order.setOrderNo(orderNo);
         order.setUserId(userId);
         order.setTotalAmount(totalAmount);
-        order.setStatus(0); // 待付款
+        order.setStatus(OrderStatus.PENDING_PAYMENT.getCode());
         order.setReceiverName(receiverName);
         order.setReceiverPhone(receiverPhone);
         order.setReceiverAddress(receiverAddress);
         order.setRemark(remark);
         order.setDeleted(0);
-        save(order);
 
-        // 创建订单项并扣减库存
+        // 创建订单项
+        List<OrderItem> orderItems = new ArrayList<>(cartItems.size());
+        List<Long> cartIds = new ArrayList<>(cartItems.size());
         for (Cart cart : cartItems) {
             Product product = cart.getProduct();
 
-            // 扣减库存
-            productService.reduceStock(product.getId(), cart.getQuantity());
-
-            // 创建订单项
             OrderItem orderItem = new OrderItem();
-            orderItem.setOrderId(order.getId());
+            orderItem.setOrderId(orderId);
             orderItem.setProductId(product.getId());
             orderItem.setProductName(product.getName());
             orderItem.setProductImage(product.getImage());
             orderItem.setProductPrice(product.getPrice());
             orderItem.setQuantity(cart.getQuantity());
             orderItem.setSubtotal(cart.getSubtotal());
-            orderItemMapper.insert(orderItem);
+            orderItems.add(orderItem);
+            cartIds.add(cart.getId());
         }
+        // 订单和订单项写入用户所在分片，订单项一条多行 INSERT
+        orderShardRouter.onUserShard(userId, () -> {
+            save(order);
+            return orderItemMapper.insertBatch(orderItems);
+        });
 
-        // 清空选中的购物车项
+        // 清空选中的购物车项（一条 DELETE ... WHERE id IN）
+        cartService.removeCheckedOut(userId, cartIds);
+
+        // 最后按商品ID升序批量扣减库存：热点商品行的锁只持有到紧接着的提交
+        Map<Long, Integer> quantities = new TreeMap<>();
         for (Cart cart : cartItems) {
-            cartService.removeById(cart.getId());
+            quantities.merge(cart.getProductId(), cart.getQuantity(), Integer::sum);
+        }
+        try {
+            productService.reduceStocks(quantities);
+        } catch (StockShortageException e) {
+            throw new BusinessException(shortageMessage(cartItems, e.getProductIds()));
         }
 
+        // 写入下单事件，提交后异步更新销量与排行
+        orderEventOutbox.append(new OrderEvent(OrderEvent.Type.CREATED, order, orderItems));
+
         logger.info("订单创建成功: orderNo={}", orderNo);
         return order;
     }
 
     @Override
-    public IPage<Order> getUserOrders(Long userId, Integer status, Integer pageNum, Integer pageSize) {
+    public IPage<Order> getUserOrders(Long userId, Integer status, Integer pageNum, Integer pageSize,
+                                      boolean withItems) {
         logger.info("查询用户订单: userId={}, status={}", userId, status);
 
         Page<Order> page = new Page<>(pageNum, pageSize);
@@ -127,42 +231,155 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         }
         wrapper.orderByDesc(Order::getCreateTime);
 
-        IPage<Order> orderPage = page(page, wrapper);
+        IPage<Order> orderPage = orderShardRouter.onUserShard(userId, () -> page(page, wrapper));
 
-        // 填充订单项
-        for (Order order : orderPage.getRecords()) {
-            fillOrderItems(order);
+        // 批量填充订单项
+        if (withItems) {
+            fillOrderItems(orderPage.getRecords());
         }
 
         return orderPage;
     }
 
+    /**
+     * 分表时在同一个只读事务（同一连接、同一快照）中依次查询各分片，各分片的计数和页数据一致
+     */
     @Override
-    public IPage<Order> getAllOrders(Integer status, Integer pageNum, Integer pageSize) {
+    @Transactional(readOnly = true)
+    public IPage<Order> getAllOrders(Integer status, Integer pageNum, Integer pageSize, boolean withItems) {
         logger.info("查询所有订单: status={}", status);
 
-        Page<Order> page = new Page<>(pageNum, pageSize);
         LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<>();
         if (status != null && status >= 0) {
             wrapper.eq(Order::getStatus, status);
         }
-        wrapper.orderByDesc(Order::getCreateTime);
 
-        IPage<Order> orderPage = page(page, wrapper);
+        IPage<Order> orderPage;
+        if (orderShardRouter.isEnabled()) {
+            orderPage = mergePage(wrapper, pageNum, pageSize);
+        } else {
+            wrapper.orderByDesc(Order::getCreateTime);
+            orderPage = page(new Page<>(pageNum, pageSize), wrapper);
+        }
 
-        // 填充订单项
-        for (Order order : orderPage.getRecords()) {
-            fillOrderItems(order);
+        // 批量填充订单项
+        if (withItems) {
+            fillOrderItems(orderPage.getRecords());
         }
 
         return orderPage;
     }
 
+    @Override
+    public CursorPage<Order> scrollUserOrders(Long userId, Integer status, String cursor, Integer size,
+                                              boolean withItems, boolean withTotal) {
+        logger.info("游标查询用户订单: userId={}, status={}, cursor={}", userId, status, cursor);
+
+        LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(Order::getUserId, userId);
+        if (status != null && status >= 0) {
+            wrapper.eq(Order::getStatus, status);
+        }
+        return orderShardRouter.onUserShard(userId, () -> scrollOrders(wrapper, cursor, size, withItems, withTotal));
+    }
+
+    @Override
+    public CursorPage<Order> scrollAllOrders(Integer status, String cursor, Integer size,
+                                             boolean withItems, boolean withTotal) {
+        logger.info("游标查询所有订单: status={}, cursor={}", status, cursor);
+
+        LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<>();
+        if (status != null && status >= 0) {
+            wrapper.eq(Order::getStatus, status);
+        }
+        return scrollOrders(wrapper, cursor, size, withItems, withTotal);
+    }
+
+    /**
+     * 按 (create_time, id) 倒序从游标位置之后读取一页订单；未限定分片时合并所有分片
+     */
+    private CursorPage<Order> scrollOrders(LambdaQueryWrapper<Order> wrapper, String cursor, Integer size,
+                                           boolean withItems, boolean withTotal) {
+        int limit = CursorPage.normalizeSize(size);
+        CursorPage.Cursor position = CursorPage.decode(cursor);
+        Long total = position == null && withTotal ? countOrders(wrapper) : null;
+
+        if (position != null) {
+            wrapper.and(w -> w.lt(Order::getCreateTime, position.createTime())
+                    .or(o -> o.eq(Order::getCreateTime, position.createTime())
+                            .lt(Order::getId, position.id())));
+        }
+
+        CursorPage<Order> result = CursorPage.of(listNewest(wrapper, limit + 1), limit,
+                Order::getCreateTime, Order::getId);
+        result.setTotal(total);
+        if (withItems) {
+            fillOrderItems(result.getRecords());
+        }
+        return result;
+    }
+
+    /**
+     * 分表时的全局页码分页：每个分片取前 pageNum*pageSize 条归并后截取当前页，页码越深代价越大
+     */
+    private IPage<Order> mergePage(LambdaQueryWrapper<Order> wrapper, Integer pageNum, Integer pageSize) {
+        long current = Math.max(pageNum, 1);
+        long end = current * pageSize;
+        if (end > maxMergeRows) {
+            throw new BusinessException("页码过深，请使用游标分页查询");
+        }
+        long total = countOrders(wrapper);
+        List<Order> top = listNewest(wrapper, end);
+        int from = (int) Math.min((current - 1) * pageSize, top.size());
+        return new Page<Order>(current, pageSize, total).setRecords(new ArrayList<>(top.subList(from, top.size())));
+    }
+
+    /**
+     * 统计订单数；未限定分片（管理员查询）时汇总所有分片
+     */
+    private long countOrders(LambdaQueryWrapper<Order> wrapper) {
+        if (!orderShardRouter.isEnabled() || OrderShardContext.current() != null) {
+            return count(wrapper);
+        }
+        return orderShardRouter.scatter(() -> count(wrapper)).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * 按 (create_time, id) 倒序取前 limit 条订单；未限定分片时每个分片各取前 limit 条，归并后再截取
+     */
+    private List<Order> listNewest(LambdaQueryWrapper<Order> wrapper, long limit) {
+        wrapper.orderByDesc(Order::getCreateTime)
+               .orderByDesc(Order::getId)
+               .last("LIMIT " + limit);
+        if (!orderShardRouter.isEnabled() || OrderShardContext.current() != null) {
+            return list(wrapper);
+        }
+        List<Order> merged = new ArrayList<>();
+        orderShardRouter.scatter(() -> list(wrapper)).forEach(merged::addAll);
+        merged.sort(NEWEST_FIRST);
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, (int) limit)) : merged;
+    }
+
+    /**
+     * 按订单ID到所在分片查询订单
+     */
+    private Order findOrder(Long orderId) {
+        return orderShardRouter.onOrderShard(orderId, () -> getById(orderId));
+    }
+
     @Override
     public Order getOrderDetail(Long orderId) {
         logger.info("获取订单详情: orderId={}", orderId);
 
-        Order order = getById(orderId);
+        Order order = findOrder(orderId);
+        if (order == null && archiveEnabled) {
+            // 已归档的订单从归档表读取
+            order = orderArchiveMapper.selectOrder(orderId);
+            if (order != null) {
+                order.setOrderItems(orderArchiveMapper.selectOrderItems(orderId));
+                return order;
+            }
+        }
         if (order == null) {
             throw new BusinessException("订单不存在");
         }
@@ -176,26 +393,16 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     public boolean cancelOrder(Long userId, Long orderId) {
         logger.info("取消订单: userId={}, orderId={}", userId, orderId);
 
-        Order order = getById(orderId);
-        if (order == null) {
-            throw new BusinessException("订单不存在");
-        }
-        if (!order.getUserId().equals(userId)) {
-            throw new BusinessException("无权操作此订单");
-        }
-        if (order.getStatus() != 0) {
-            throw new BusinessException("只能取消待付款的订单");
-        }
+        // 带状态条件更新，并发取消/支付时只有一个成功，库存只恢复一次
+        TransitionResult result = orderStateMachine.transition(
+                orderId, userId, OrderStatus.PENDING_PAYMENT, OrderStatus.CANCELLED);
+        checkTransition(result, "只能取消待付款的订单");
 
-        // 恢复库存
+        // 库存由取消事件的处理方异步恢复
+        Order order = findOrder(orderId);
         fillOrderItems(order);
-        for (OrderItem item : order.getOrderItems()) {
-            productService.restoreStock(item.getProductId(), item.getQuantity());
-        }
-
-        // 更新订单状态
-        order.setStatus(4); // 已取消
-        return updateById(order);
+        orderEventOutbox.append(new OrderEvent(OrderEvent.Type.CANCELLED, order, order.getOrderItems()));
+        return true;
     }
 
     @Override
@@ -203,20 +410,12 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     public boolean payOrder(Long userId, Long orderId) {
         logger.info("支付订单: userId={}, orderId={}", userId, orderId);
 
-        Order order = getById(orderId);
-        if (order == null) {
-            throw new BusinessException("订单不存在");
-        }
-        if (!order.getUserId().equals(userId)) {
-            throw new BusinessException("无权操作此订单");
-        }
-        if (order.getStatus() != 0) {
-            throw new BusinessException("订单状态异常");
-        }
+        TransitionResult result = orderStateMachine.transition(
+                orderId, userId, OrderStatus.PENDING_PAYMENT, OrderStatus.PAID);
+        checkTransition(result, "订单状态异常");
 
-        order.setStatus(1); // 已付款
-        order.setPayTime(LocalDateTime.now());
-        return updateById(order);
+        orderEventOutbox.append(new OrderEvent(OrderEvent.Type.PAID, orderId, userId));
+        return true;
     }
 
     @Override
@@ -224,17 +423,12 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     public boolean deliverOrder(Long orderId) {
         logger.info("订单发货: orderId={}", orderId);
 
-        Order order = getById(orderId);
-        if (order == null) {
-            throw new BusinessException("订单不存在");
-        }
-        if (order.getStatus() != 1) {
-            throw new BusinessException("只能发货已付款的订单");
-        }
+        TransitionResult result = orderStateMachine.transition(
+                orderId, null, OrderStatus.PAID, OrderStatus.DELIVERED);
+        checkTransition(result, "只能发货已付款的订单");
 
-        order.setStatus(2); // 已发货
-        order.setDeliveryTime(LocalDateTime.now());
-        return updateById(order);
+        orderEventOutbox.append(new OrderEvent(OrderEvent.Type.DELIVERED, orderId, null));
+        return true;
     }
 
     @Override
@@ -242,59 +436,151 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     public boolean confirmReceive(Long userId, Long orderId) {
         logger.info("确认收货: userId={}, orderId={}", userId, orderId);
 
-        Order order = getById(orderId);
+        TransitionResult result = orderStateMachine.transition(
+                orderId, userId, OrderStatus.DELIVERED, OrderStatus.COMPLETED);
+        checkTransition(result, "只能确认收货已发货的订单");
+
+        orderEventOutbox.append(new OrderEvent(OrderEvent.Type.COMPLETED, orderId, userId));
+        return true;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean updateOrderStatus(Long orderId, Integer status) {
+        logger.info("更新订单状态: orderId={}, status={}", orderId, status);
+
+        Order order = findOrder(orderId);
         if (order == null) {
             throw new BusinessException("订单不存在");
         }
-        if (!order.getUserId().equals(userId)) {
-            throw new BusinessException("无权操作此订单");
+        OrderStatus from = OrderStatus.of(order.getStatus());
+        OrderStatus to = OrderStatus.of(status);
+        if (from == to) {
+            return true;
         }
-        if (order.getStatus() != 2) {
-            throw new BusinessException("只能确认收货已发货的订单");
+        if (!from.canTransitionTo(to)) {
+            throw new BusinessException("订单不能从【" + from.getLabel() + "】变更为【" + to.getLabel() + "】");
         }
 
-        order.setStatus(3); // 已完成
-        order.setFinishTime(LocalDateTime.now());
-        return updateById(order);
+        // 以读到的状态为条件更新，期间被其他请求修改时返回冲突
+        TransitionResult result = orderStateMachine.transition(orderId, null, from, to);
+        checkTransition(result, "订单状态已变化，请刷新后重试");
+
+        if (to == OrderStatus.CANCELLED) {
+            fillOrderItems(order);
+        }
+        orderEventOutbox.append(new OrderEvent(OrderEvent.Type.forStatus(to), order, order.getOrderItems()));
+        return true;
     }
 
     @Override
-    public boolean updateOrderStatus(Long orderId, Integer status) {
-        logger.info("更新订单状态: orderId={}, status={}", orderId, status);
+    @Transactional(rollbackFor = Exception.class)
+    public List<Long> expireOrders(Collection<Long> orderIds, LocalDateTime deadline) {
+        if (orderIds.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        Order order = getById(orderId);
-        if (order == null) {
-            throw new BusinessException("订单不存在");
+        // 先锁定仍待付款的订单，与并发的支付、取消串行；按分片、分片内按ID顺序加锁
+        List<Order> orders = new ArrayList<>();
+        List<Long> expiredIds = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        orderShardRouter.groupByShard(orderIds).forEach((shard, ids) -> OrderShardContext.with(shard, () -> {
+            List<Order> locked = baseMapper.selectExpiredForUpdate(ids, deadline);
+            if (locked.isEmpty()) {
+                return 0;
+            }
+            List<Long> lockedIds = locked.stream().map(Order::getId).collect(Collectors.toList());
+            orders.addAll(locked);
+            expiredIds.addAll(lockedIds);
+            return baseMapper.batchUpdateStatus(lockedIds, OrderStatus.PENDING_PAYMENT.getCode(),
+                    OrderStatus.CANCELLED.getCode(), now);
+        }));
+        if (orders.isEmpty()) {
+            return new ArrayList<>();
         }
 
-        order.setStatus(status);
-        if (status == 1) {
-            order.setPayTime(LocalDateTime.now());
-        } else if (status == 2) {
-            order.setDeliveryTime(LocalDateTime.now());
-        } else if (status == 3) {
-            order.setFinishTime(LocalDateTime.now());
+        // 整批订单的库存合并后一次恢复
+        fillOrderItems(orders);
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (Order order : orders) {
+            for (OrderItem item : order.getOrderItems()) {
+                quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
         }
+        productService.restoreStocks(quantities);
 
-        return updateById(order);
+        for (Order order : orders) {
+            orderEventOutbox.append(new OrderEvent(OrderEvent.Type.EXPIRED, order, order.getOrderItems()));
+        }
+        logger.info("超时订单已关闭: count={}", expiredIds.size());
+        return expiredIds;
     }
 
+    /**
+     * 状态变更失败时转换为业务异常
+     *
+     * @param conflictMessage 状态不符时的提示
+     */
+    private void checkTransition(TransitionResult result, String conflictMessage) {
+        switch (result) {
+            case SUCCESS -> {
+            }
+            case NOT_FOUND -> throw new BusinessException("订单不存在");
+            case FORBIDDEN -> throw new BusinessException("无权操作此订单");
+            case CONFLICT -> throw new BusinessException(conflictMessage);
+            case INVALID_TRANSITION -> throw new BusinessException("不允许的订单状态变更");
+        }
+    }
     /**
      * 填充订单项
      */
     private void fillOrderItems(Order order) {
         LambdaQueryWrapper<OrderItem> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(OrderItem::getOrderId, order.getId());
-        List<OrderItem> items = orderItemMapper.selectList(wrapper);
+        List<OrderItem> items = orderShardRouter.onOrderShard(order.getId(), () -> orderItemMapper.selectList(wrapper));
         order.setOrderItems(items);
     }
 
     /**
-     * 生成订单号
+     * 拼接库存不足的商品名称
      */
-    private String generateOrderNo() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String random = String.format("%04d", new Random().nextInt(10000));
-        return timestamp + random;
+    private String shortageMessage(List<Cart> cartItems, List<Long> shortIds) {
+        StringBuilder names = new StringBuilder();
+        for (Cart cart : cartItems) {
+            if (shortIds.contains(cart.getProductId())) {
+                if (names.length() > 0) {
+                    names.append("、");
+                }
+                names.append("【").append(cart.getProduct().getName()).append("】");
+            }
+        }
+        return "商品" + names + "库存不足";
+    }
+
+    /**
+     * 批量填充订单项：每个分片一次查询取回该分片订单的订单项，再按订单ID分组
+     */
+    private void fillOrderItems(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        List<Long> orderIds = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            orderIds.add(order.getId());
+        }
+
+        Map<Long, List<OrderItem>> itemMap = new HashMap<>();
+        orderShardRouter.groupByShard(orderIds).forEach((shard, ids) -> {
+            LambdaQueryWrapper<OrderItem> wrapper = new LambdaQueryWrapper<>();
+            wrapper.in(OrderItem::getOrderId, ids);
+            for (OrderItem item : OrderShardContext.with(shard, () -> orderItemMapper.selectList(wrapper))) {
+                itemMap.computeIfAbsent(item.getOrderId(), id -> new ArrayList<>()).add(item);
+            }
+        });
+
+        for (Order order : orders) {
+            order.setOrderItems(itemMap.getOrDefault(order.getId(), new ArrayList<>()));
+        }
     }
 }
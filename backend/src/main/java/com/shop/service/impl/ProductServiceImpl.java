@@ -5,18 +5,41 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.shop.cache.ProductCache;
+import com.shop.common.CursorPage;
+import com.shop.common.FanOut;
 import com.shop.entity.Category;
 import com.shop.entity.Product;
 import com.shop.exception.BusinessException;
+import com.shop.exception.StockShortageException;
 import com.shop.mapper.ProductMapper;
+import com.shop.metrics.ShopMetrics;
+import com.shop.sales.SalesCounter;
+import com.shop.sales.SalesRanking;
+import com.shop.search.ProductSearchIndex;
 import com.shop.service.CategoryService;
 import com.shop.service.ProductService;
+import com.shop.stock.StockReservationEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 商品服务实现类
  */
@@ -28,25 +51,197 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
     @Autowired
     private CategoryService categoryService;
 
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private SalesCounter salesCounter;
+
+    @Autowired
+    private SalesRanking salesRanking;
+
+    @Autowired
+    private ShopMetrics shopMetrics;
+
+    @Autowired
+    private StockReservationEngine stockReservationEngine;
+
+    @Autowired
+    private FanOut fanOut;
+
     @Override
+    @Transactional(readOnly = true)
     public IPage<Product> getProductPage(Integer pageNum, Integer pageSize, 
                                           String name, Long categoryId, Integer status) {
         logger.info("分页查询商品: pageNum={}, pageSize={}, name={}, categoryId={}, status={}", 
                     pageNum, pageSize, name, categoryId, status);
         
         Page<Product> page = new Page<>(pageNum, pageSize);
-        return baseMapper.selectProductPage(page, name, categoryId, status);
+        IPage<Product> result = baseMapper.selectProductPage(page, name, categoryId, status);
+        fillCategoryNames(result.getRecords());
+        return result;
+    }
+
+    @Override
+    public CursorPage<Product> scrollProducts(String cursor, Integer size, String name, Long categoryId,
+                                              Integer status, boolean withTotal) {
+        logger.info("游标查询商品: cursor={}, size={}, name={}, categoryId={}, status={}",
+                    cursor, size, name, categoryId, status);
+
+        int limit = CursorPage.normalizeSize(size);
+        CursorPage.Cursor position = CursorPage.decode(cursor);
+
+        LambdaQueryWrapper<Product> wrapper = new LambdaQueryWrapper<>();
+        wrapper.like(StringUtils.hasText(name), Product::getName, name)
+               .eq(categoryId != null, Product::getCategoryId, categoryId)
+               .eq(status != null, Product::getStatus, status);
+        Long total = position == null && withTotal ? count(wrapper) : null;
+
+        // 从游标位置之后继续读取：(create_time, id) < (游标时间, 游标ID)
+        if (position != null) {
+            wrapper.and(w -> w.lt(Product::getCreateTime, position.createTime())
+                    .or(o -> o.eq(Product::getCreateTime, position.createTime())
+                            .lt(Product::getId, position.id())));
+        }
+        wrapper.orderByDesc(Product::getCreateTime)
+               .orderByDesc(Product::getId)
+               .last("LIMIT " + (limit + 1));
+
+        CursorPage<Product> result = CursorPage.of(list(wrapper), limit, Product::getCreateTime, Product::getId);
+        result.setTotal(total);
+        fillCategoryNames(result.getRecords());
+        return result;
+    }
+
+    @Override
+    public IPage<Product> searchProducts(String keyword, Long categoryId, Integer status,
+                                         Integer pageNum, Integer pageSize) {
+        logger.info("搜索商品: keyword={}, categoryId={}, status={}", keyword, categoryId, status);
+
+        List<Long> ids = productSearchIndex.search(keyword, categoryId, status);
+        Page<Product> page = new Page<>(pageNum, pageSize, ids.size());
+        int from = (int) Math.min(page.offset(), ids.size());
+        int to = (int) Math.min(from + page.getSize(), ids.size());
+        List<Long> pageIds = ids.subList(from, to);
+
+        // 按相关度顺序组装，缓存中的实例是共享的，复制后再填充分类名称
+        Map<Long, Product> productMap = getProductMap(pageIds);
+        List<Product> records = new ArrayList<>(pageIds.size());
+        for (Long id : pageIds) {
+            Product cached = productMap.get(id);
+            if (cached != null) {
+                Product product = new Product();
+                BeanUtils.copyProperties(cached, product);
+                records.add(product);
+            }
+        }
+        fillCategoryNames(records);
+        page.setRecords(records);
+        return page;
+    }
+
+    @Override
+    public List<Product> getTopSellers(Integer limit) {
+        int size = limit == null || limit <= 0 ? 10 : Math.min(limit, 100);
+        List<Long> ids = salesCounter.topSellers(size);
+        Map<Long, Product> productMap = getProductMap(ids);
+
+        List<Product> records = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product cached = productMap.get(id);
+            if (cached != null && Integer.valueOf(1).equals(cached.getStatus())) {
+                Product product = new Product();
+                BeanUtils.copyProperties(cached, product);
+                product.setSales((int) salesCounter.getSales(id));
+                records.add(product);
+            }
+        }
+        fillCategoryNames(records);
+        return records;
+    }
+
+    @Override
+    public List<Map<String, Object>> getRanking(String window, Long categoryId, Integer limit) {
+        int size = limit == null || limit <= 0 ? 10 : Math.min(limit, 100);
+        List<SalesRanking.Entry> entries = salesRanking.top(SalesRanking.Window.of(window), categoryId, size);
+        Map<Long, Product> productMap = getProductMap(entries.stream().map(SalesRanking.Entry::productId).toList());
+
+        List<Map<String, Object>> ranking = new ArrayList<>(entries.size());
+        for (SalesRanking.Entry entry : entries) {
+            Product cached = productMap.get(entry.productId());
+            if (cached == null || !Integer.valueOf(1).equals(cached.getStatus())) {
+                continue;
+            }
+            Product product = new Product();
+            BeanUtils.copyProperties(cached, product);
+            fillCategoryNames(List.of(product));
+
+            Map<String, Object> item = new HashMap<>();
+            item.put("product", product);
+            item.put("sales", entry.sales());
+            ranking.add(item);
+        }
+        return ranking;
+    }
+
+    /**
+     * 分类名称从内存快照填充，不再联表
+     */
+    private void fillCategoryNames(List<Product> products) {
+        for (Product product : products) {
+            if (product.getCategoryId() != null) {
+                Category category = categoryService.getById(product.getCategoryId());
+                if (category != null) {
+                    product.setCategoryName(category.getName());
+                }
+            }
+        }
     }
 
     @Override
     public Product getProductDetail(Long id) {
         logger.info("获取商品详情: id={}", id);
         
-        Product product = getById(id);
-        if (product == null) {
+        Product cached = getById(id);
+        if (cached == null) {
             throw new BusinessException("商品不存在");
         }
-        
+        return toDetail(cached);
+    }
+
+    @Override
+    public Map<String, Object> getProductDetailView(Long id, Integer relatedLimit) {
+        logger.info("获取商品详情页: id={}", id);
+
+        Product cached = getById(id);
+        if (cached == null) {
+            throw new BusinessException("商品不存在");
+        }
+        int size = relatedLimit == null || relatedLimit <= 0 ? 6 : Math.min(relatedLimit, 20);
+
+        // 商品只读取一次，同类热销与详情共用；同类热销缓存未命中时要回源数据库，提交并发执行，当前线程同时组装详情
+        CompletableFuture<List<Product>> related = fanOut.supply(() -> getRelatedProducts(cached, size));
+        Product product = toDetail(cached);
+
+        Map<String, Object> view = new HashMap<>();
+        view.put("product", product);
+        view.put("related", FanOut.join(related));
+        return view;
+    }
+
+    /**
+     * 由缓存中的商品组装详情：缓存中的实例是共享的，复制后再填充销量和分类名称
+     */
+    private Product toDetail(Product cached) {
+        Product product = new Product();
+        BeanUtils.copyProperties(cached, product);
+        // 销量加上尚未写回数据库的部分
+        int sales = product.getSales() == null ? 0 : product.getSales();
+        product.setSales((int) (sales + salesCounter.getPending(product.getId())));
+
         // 获取分类名称
         if (product.getCategoryId() != null) {
             Category category = categoryService.getById(product.getCategoryId());
@@ -54,50 +249,198 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
                 product.setCategoryName(category.getName());
             }
         }
-        
         return product;
     }
 
+    /**
+     * 同分类近7天热销的上架商品，不含商品本身
+     */
+    private List<Product> getRelatedProducts(Product product, int limit) {
+        if (product.getCategoryId() == null) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = salesRanking.top(SalesRanking.Window.WEEK, product.getCategoryId(), limit + 1).stream()
+                .map(SalesRanking.Entry::productId)
+                .filter(relatedId -> !relatedId.equals(product.getId()))
+                .limit(limit)
+                .toList();
+        Map<Long, Product> productMap = getProductMap(ids);
+
+        List<Product> records = new ArrayList<>(ids.size());
+        for (Long relatedId : ids) {
+            Product cached = productMap.get(relatedId);
+            if (cached != null && Integer.valueOf(1).equals(cached.getStatus())) {
+                Product related = new Product();
+                BeanUtils.copyProperties(cached, related);
+                records.add(related);
+            }
+        }
+        fillCategoryNames(records);
+        return records;
+    }
+
+    @Override
+    public Map<Long, Product> getProductMap(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        
+        // 先读缓存，未命中的部分一次 IN 查询取回
+        return productCache.getAll(ids);
+    }
+
+    @Override
+    public Product getById(Serializable id) {
+        if (id == null) {
+            return null;
+        }
+        return productCache.get(Long.valueOf(id.toString()));
+    }
+
+    @Override
+    public boolean save(Product entity) {
+        boolean result = super.save(entity);
+        productSearchIndex.reindexAfterCommit(entity.getId());
+        return result;
+    }
+
+    @Override
+    public boolean updateById(Product entity) {
+        boolean result = super.updateById(entity);
+        productCache.invalidate(entity.getId());
+        productSearchIndex.reindexAfterCommit(entity.getId());
+        return result;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        Long productId = Long.valueOf(id.toString());
+        productCache.invalidate(productId);
+        productSearchIndex.reindexAfterCommit(productId);
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getCacheStats() {
+        return productCache.stats();
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean reduceStock(Long productId, Integer quantity) {
         logger.info("扣减库存: productId={}, quantity={}", productId, quantity);
         
-        Product product = getById(productId);
-        if (product == null) {
-            throw new BusinessException("商品不存在");
-        }
-        if (product.getStock() < quantity) {
-            throw new BusinessException("库存不足");
+        // 预占模式：在本地配额上扣减，不触碰商品行
+        if (stockReservationEngine.isEnabled()) {
+            if (!stockReservationEngine.reserve(productId, quantity)) {
+                shopMetrics.stockConflict("shortage", 1);
+                throw new BusinessException("库存不足");
+            }
+            return true;
         }
         
+        // 条件更新本身即库存校验，失败时再查一次区分商品不存在
         LambdaUpdateWrapper<Product> wrapper = new LambdaUpdateWrapper<>();
         wrapper.eq(Product::getId, productId)
                 .ge(Product::getStock, quantity)
-                .setSql("stock = stock - " + quantity)
-                .setSql("sales = sales + " + quantity);
+                .setSql("stock = stock - " + quantity);
         
         boolean result = update(wrapper);
+        productCache.invalidate(productId);
         if (!result) {
-            throw new BusinessException("扣减库存失败，库存不足");
+            if (baseMapper.selectById(productId) == null) {
+                throw new BusinessException("商品不存在");
+            }
+            shopMetrics.stockConflict("shortage", 1);
+            throw new BusinessException("库存不足");
         }
         
         logger.info("扣减库存成功: productId={}, quantity={}", productId, quantity);
         return true;
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void reduceStocks(Map<Long, Integer> quantities) {
+        logger.info("批量扣减库存: {}", quantities);
+        if (quantities.isEmpty()) {
+            return;
+        }
+        
+        // 按商品ID升序处理，多个订单并发扣减同一批商品时加锁顺序一致，不会死锁
+        SortedMap<Long, Integer> sorted = new TreeMap<>(quantities);
+        
+        if (stockReservationEngine.isEnabled()) {
+            List<Long> shortIds = stockReservationEngine.reserveAll(sorted);
+            if (!shortIds.isEmpty()) {
+                shopMetrics.stockConflict("shortage", shortIds.size());
+                throw new StockShortageException(shortIds);
+            }
+            return;
+        }
+        
+        // 一次按序加锁读出库存，校验后一条语句批量扣减
+        List<Product> locked = baseMapper.selectStockForUpdate(sorted.keySet());
+        Map<Long, Integer> stockMap = new HashMap<>(locked.size() * 2);
+        for (Product product : locked) {
+            stockMap.put(product.getId(), product.getStock());
+        }
+        List<Long> shortIds = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : sorted.entrySet()) {
+            Integer stock = stockMap.get(entry.getKey());
+            if (stock == null || stock < entry.getValue()) {
+                shortIds.add(entry.getKey());
+            }
+        }
+        if (!shortIds.isEmpty()) {
+            shopMetrics.stockConflict("shortage", shortIds.size());
+            throw new StockShortageException(shortIds);
+        }
+        
+        baseMapper.batchDeductStock(new LinkedHashMap<>(sorted));
+        for (Long productId : sorted.keySet()) {
+            productCache.invalidate(productId);
+        }
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean restoreStock(Long productId, Integer quantity) {
         logger.info("恢复库存: productId={}, quantity={}", productId, quantity);
         
+        if (stockReservationEngine.isEnabled()) {
+            stockReservationEngine.release(productId, quantity);
+            return true;
+        }
+        
         LambdaUpdateWrapper<Product> wrapper = new LambdaUpdateWrapper<>();
         wrapper.eq(Product::getId, productId)
-                .setSql("stock = stock + " + quantity)
-                .setSql("sales = sales - " + quantity);
+                .setSql("stock = stock + " + quantity);
         
         boolean result = update(wrapper);
+        productCache.invalidate(productId);
         logger.info("恢复库存结果: productId={}, quantity={}, result={}", productId, quantity, result);
         return result;
     }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void restoreStocks(Map<Long, Integer> quantities) {
+        logger.info("批量恢复库存: {}", quantities);
+        if (quantities.isEmpty()) {
+            return;
+        }
+        
+        SortedMap<Long, Integer> sorted = new TreeMap<>(quantities);
+        if (stockReservationEngine.isEnabled()) {
+            sorted.forEach(stockReservationEngine::release);
+            return;
+        }
+        
+        baseMapper.batchRestoreStock(new LinkedHashMap<>(sorted));
+        for (Long productId : sorted.keySet()) {
+            productCache.invalidate(productId);
+        }
+    }
 }
@@ -0,0 +1,38 @@
+package com.shop.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * 当前线程访问的订单分片，由 {@link OrderShardTableNameHandler} 在改写表名时读取
+ */
+public final class OrderShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private OrderShardContext() {
+    }
+
+    /**
+     * 当前分片，未指定返回null
+     */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 在指定分片上执行，结束后恢复原分片
+     */
+    public static <T> T with(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
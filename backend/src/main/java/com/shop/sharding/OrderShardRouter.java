@@ -0,0 +1,114 @@
+package com.shop.sharding;
+
+import com.shop.order.OrderNoGenerator;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * 订单分片路由
+ * <p>
+ * orders 和 order_item 按用户ID哈希拆分到 shards 张分表（orders_0 … orders_{n-1}，订单项与订单同分片），
+ * 同一用户的订单都在一个分片，按用户查询只访问一张表。用户ID哈希出 6 位分片基因并写入订单ID低位
+ * （见 {@link OrderNoGenerator}），分片数是 64 的约数，因此订单ID对分片数取模即为所在分片，
+ * 按订单ID或订单号查询时不需要映射表。shards 为1（默认）时不分表，沿用原表名。
+ */
+@Component
+public class OrderShardRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderShardRouter.class);
+
+    public static final String ORDERS = "orders";
+
+    public static final String ORDER_ITEM = "order_item";
+
+    public static final int MAX_SHARDS = OrderNoGenerator.MAX_GENE + 1;
+
+    @Value("${shop.order.sharding.shards:1}")
+    private int shards;
+
+    @PostConstruct
+    public void init() {
+        if (shards < 1 || shards > MAX_SHARDS || Integer.bitCount(shards) != 1) {
+            throw new IllegalStateException("shop.order.sharding.shards 必须是 1-" + MAX_SHARDS + " 之间的2的幂: " + shards);
+        }
+        if (isEnabled()) {
+            logger.info("订单分表已开启: shards={}", shards);
+        }
+    }
+
+    public boolean isEnabled() {
+        return shards > 1;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * 用户的分片基因 0-63（乘法哈希取高 6 位，连续的用户ID也能均匀分散）
+     */
+    public static int gene(long userId) {
+        return (int) ((userId * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - OrderNoGenerator.GENE_BITS));
+    }
+
+    /**
+     * 分表名，第 shard 张分表为 base_shard
+     */
+    public static String tableName(String base, int shard) {
+        return base + "_" + shard;
+    }
+
+    public int shardOfUser(Long userId) {
+        return gene(userId) % shards;
+    }
+
+    public int shardOfOrder(Long orderId) {
+        return (int) Math.floorMod(orderId, (long) shards);
+    }
+
+    /**
+     * 在用户所在分片上执行
+     */
+    public <T> T onUserShard(Long userId, Supplier<T> action) {
+        return OrderShardContext.with(shardOfUser(userId), action);
+    }
+
+    /**
+     * 在订单所在分片上执行
+     */
+    public <T> T onOrderShard(Long orderId, Supplier<T> action) {
+        return OrderShardContext.with(shardOfOrder(orderId), action);
+    }
+
+    /**
+     * 在每个分片上依次执行，按分片顺序返回各分片的结果
+     */
+    public <T> List<T> scatter(Supplier<T> action) {
+        List<T> results = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            results.add(OrderShardContext.with(shard, action));
+        }
+        return results;
+    }
+
+    /**
+     * 订单ID按所在分片分组，分片按升序排列
+     */
+    public Map<Integer, List<Long>> groupByShard(Collection<Long> orderIds) {
+        Map<Integer, List<Long>> groups = new TreeMap<>();
+        for (Long orderId : orderIds) {
+            groups.computeIfAbsent(shardOfOrder(orderId), shard -> new ArrayList<>()).add(orderId);
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,27 @@
+package com.shop.sharding;
+
+import com.baomidou.mybatisplus.extension.plugins.handler.TableNameHandler;
+
+import java.util.Set;
+
+/**
+ * 把 SQL 中的 orders、order_item 替换为当前分片的分表
+ * <p>
+ * 未指定分片时直接报错，避免漏掉路由的查询静默读写原表。
+ */
+public class OrderShardTableNameHandler implements TableNameHandler {
+
+    private static final Set<String> SHARDED_TABLES = Set.of(OrderShardRouter.ORDERS, OrderShardRouter.ORDER_ITEM);
+
+    @Override
+    public String dynamicTableName(String sql, String tableName) {
+        if (!SHARDED_TABLES.contains(tableName)) {
+            return tableName;
+        }
+        Integer shard = OrderShardContext.current();
+        if (shard == null) {
+            throw new IllegalStateException("访问订单表未指定分片: " + tableName);
+        }
+        return OrderShardRouter.tableName(tableName, shard);
+    }
+}
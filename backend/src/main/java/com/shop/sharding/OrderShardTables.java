@@ -0,0 +1,43 @@
+package com.shop.sharding;
+
+import com.shop.mapper.OrderItemMapper;
+import com.shop.mapper.OrderMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 开启分表时在启动阶段建表：按原表结构（含索引）创建缺少的分表
+ * <p>
+ * 原表仍保留，作为分表的结构模板；已有订单不会自动迁移。
+ */
+@Component
+public class OrderShardTables {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderShardTables.class);
+
+    @Autowired
+    private OrderShardRouter orderShardRouter;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private OrderItemMapper orderItemMapper;
+
+    @PostConstruct
+    public void init() {
+        if (!orderShardRouter.isEnabled()) {
+            return;
+        }
+        for (int shard = 0; shard < orderShardRouter.getShards(); shard++) {
+            orderMapper.createShardTable(OrderShardRouter.tableName(OrderShardRouter.ORDERS, shard));
+            orderItemMapper.createShardTable(OrderShardRouter.tableName(OrderShardRouter.ORDER_ITEM, shard));
+        }
+        if (orderMapper.selectUnshardedId() != null) {
+            logger.warn("orders 原表中还有订单，开启分表后这些订单不再可见，需要按 user_id 迁移到分表");
+        }
+    }
+}
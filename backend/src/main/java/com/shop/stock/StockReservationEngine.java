@@ -0,0 +1,443 @@
+package com.shop.stock;
+
+import com.shop.cache.ProductCache;
+import com.shop.entity.Product;
+import com.shop.entity.StockReservationLog;
+import com.shop.mapper.ProductMapper;
+import com.shop.mapper.StockReservationMapper;
+import com.shop.metrics.ShopMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 库存预占引擎（秒杀场景，默认关闭）
+ * <p>
+ * 各实例按批次从商品库存中领取配额（带条件的 UPDATE，多实例下也不会超卖），
+ * 下单时只在本地计数器上 CAS 扣减，不触碰商品行；同时在订单事务中追加一条预占流水。
+ * 定时结算用流水冲减配额，长时间未使用的配额归还商品库存。
+ * <p>
+ * 不变量：本地可用数 = 配额 - 未结算流水。启动和停机时按此归还未使用的库存，
+ * 实例崩溃后以相同的 node-id 重启即可完成对账。
+ */
+@Component
+public class StockReservationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationEngine.class);
+
+    /**
+     * 并发领取配额失败时的重试次数
+     */
+    private static final int GRANT_RETRIES = 3;
+
+    /**
+     * 当前线程在 releasingOnFailure 中的预占
+     */
+    private static final ThreadLocal<List<Reservation>> TRACKED = new ThreadLocal<>();
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private StockReservationMapper reservationMapper;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShopMetrics shopMetrics;
+
+    @Value("${shop.node-id:shop-node-0}")
+    private String nodeId;
+
+    @Value("${shop.stock.reservation.enabled:false}")
+    private boolean enabled;
+
+    @Value("${shop.stock.reservation.chunk-size:20}")
+    private int chunkSize;
+
+    @Value("${shop.stock.reservation.idle-return-after:60000}")
+    private long idleReturnAfter;
+
+    @Value("${shop.stock.reservation.flush-batch-size:1000}")
+    private int flushBatchSize;
+
+    private final Map<Long, ProductStock> stocks = new ConcurrentHashMap<>();
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        if (enabled) {
+            // 对账上次运行（包括崩溃）遗留的配额，在接收请求之前完成
+            reconcile();
+            logger.info("库存预占引擎已启用: nodeId={}, chunkSize={}", nodeId, chunkSize);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (enabled) {
+            reconcile();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 预占库存，库存不足返回false；需在订单事务中调用，事务回滚时额度自动退回
+     */
+    public boolean reserve(Long productId, int quantity) {
+        return reserveAll(new TreeMap<>(Map.of(productId, quantity))).isEmpty();
+    }
+
+    /**
+     * 按商品ID顺序预占多个商品的库存，全部成功或全部不预占
+     *
+     * @return 库存不足的商品ID，为空表示全部预占成功
+     */
+    public List<Long> reserveAll(SortedMap<Long, Integer> quantities) {
+        List<ProductStock> acquired = new ArrayList<>(quantities.size());
+        List<Long> shortIds = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            ProductStock stock = stocks.computeIfAbsent(entry.getKey(), ProductStock::new);
+            if (stock.tryAcquire(entry.getValue()) || refillAndAcquire(stock, entry.getValue())) {
+                acquired.add(stock);
+            } else {
+                shortIds.add(entry.getKey());
+            }
+        }
+        if (!shortIds.isEmpty()) {
+            // 只在内存中扣过，直接退回，不写流水
+            for (ProductStock stock : acquired) {
+                stock.release(quantities.get(stock.productId));
+            }
+            return shortIds;
+        }
+
+        Reservation reservation = new Reservation(acquired, quantities);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(reservation);
+        }
+        List<Reservation> tracked = TRACKED.get();
+        if (tracked != null) {
+            tracked.add(reservation);
+        }
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            appendLog(entry.getKey(), entry.getValue());
+        }
+        return shortIds;
+    }
+
+    /**
+     * 执行操作，操作抛出异常时立即退回其中预占的额度。
+     * 回滚到保存点（NESTED）不会触发事务同步回调，在保存点中预占库存时用它包装，由调用方回滚到保存点。
+     */
+    public <T> T releasingOnFailure(Supplier<T> action) {
+        List<Reservation> previous = TRACKED.get();
+        List<Reservation> reservations = new ArrayList<>();
+        TRACKED.set(reservations);
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            for (Reservation reservation : reservations) {
+                reservation.release();
+            }
+            throw e;
+        } finally {
+            if (previous == null) {
+                TRACKED.remove();
+            } else {
+                previous.addAll(reservations);
+                TRACKED.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 归还库存（取消订单），事务提交后额度回到本地计数器
+     */
+    public void release(Long productId, int quantity) {
+        ProductStock stock = stocks.computeIfAbsent(productId, ProductStock::new);
+        appendLog(productId, -quantity);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    stock.release(quantity);
+                }
+            });
+        } else {
+            stock.release(quantity);
+        }
+    }
+
+    /**
+     * 定时结算流水，并归还空闲配额；与对账互斥，同一批流水不会被结算两次
+     */
+    @Scheduled(fixedDelayString = "${shop.stock.reservation.flush-interval:1000}")
+    public synchronized void flush() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            settleLogs();
+            returnIdleQuota();
+        } catch (RuntimeException e) {
+            logger.error("库存预占结算失败: nodeId={}", nodeId, e);
+        }
+    }
+
+    /**
+     * 本地配额用完时，加锁从商品库存领取新批次后再扣减
+     */
+    private boolean refillAndAcquire(ProductStock stock, int quantity) {
+        // 持锁期间要访问数据库，用 ReentrantLock 而不是 synchronized，虚拟线程等待时不占住载体线程
+        stock.lock.lock();
+        try {
+            // 等锁期间可能已被其他线程补充
+            if (stock.tryAcquire(quantity)) {
+                return true;
+            }
+            int missing = quantity - stock.available.get();
+            int granted = grant(stock.productId, missing, Math.max(chunkSize, quantity));
+            if (granted <= 0) {
+                return false;
+            }
+            stock.release(granted);
+            return stock.tryAcquire(quantity);
+        } finally {
+            stock.lock.unlock();
+        }
+    }
+
+    /**
+     * 在独立事务中从商品库存领取配额：优先领取一个批次，不足一个批次时领取剩余全部
+     *
+     * @param min       至少需要的数量
+     * @param preferred 期望领取的数量
+     * @return 实际领取的数量，库存不足返回0
+     */
+    private int grant(Long productId, int min, int preferred) {
+        Integer granted = requiresNew.execute(status -> {
+            for (int i = 0; i < GRANT_RETRIES; i++) {
+                int amount = preferred;
+                if (productMapper.deductStock(productId, amount) == 0) {
+                    Product product = productMapper.selectById(productId);
+                    if (product == null || product.getStock() < min) {
+                        return 0;
+                    }
+                    amount = product.getStock();
+                    if (productMapper.deductStock(productId, amount) == 0) {
+                        // 读取后库存又被其他实例领走，重试
+                        shopMetrics.stockConflict("grant_retry", 1);
+                        continue;
+                    }
+                }
+                reservationMapper.addQuota(nodeId, productId, amount);
+                return amount;
+            }
+            return 0;
+        });
+        if (granted != null && granted > 0) {
+            productCache.invalidate(productId);
+            logger.debug("领取库存配额: productId={}, quantity={}", productId, granted);
+            return granted;
+        }
+        return 0;
+    }
+
+    private void appendLog(Long productId, int quantity) {
+        StockReservationLog log = new StockReservationLog();
+        log.setNodeId(nodeId);
+        log.setProductId(productId);
+        log.setQuantity(quantity);
+        reservationMapper.insert(log);
+    }
+
+    /**
+     * 结算流水：按商品汇总后冲减配额，再删除已结算的流水。
+     * 只删除本次读到的流水ID，尚未提交的流水留给下一轮。
+     */
+    private void settleLogs() {
+        int settled;
+        do {
+            Integer count = requiresNew.execute(status -> {
+                List<StockReservationLog> logs = reservationMapper.selectBatch(nodeId, flushBatchSize);
+                if (logs.isEmpty()) {
+                    return 0;
+                }
+                // 按商品ID排序后更新，固定加锁顺序
+                Map<Long, Integer> consumed = new TreeMap<>();
+                List<Long> ids = new ArrayList<>(logs.size());
+                for (StockReservationLog log : logs) {
+                    consumed.merge(log.getProductId(), log.getQuantity(), Integer::sum);
+                    ids.add(log.getId());
+                }
+                for (Map.Entry<Long, Integer> entry : consumed.entrySet()) {
+                    if (entry.getValue() != 0) {
+                        reservationMapper.addQuota(nodeId, entry.getKey(), -entry.getValue());
+                    }
+                }
+                reservationMapper.deleteBatchIds(ids);
+                return logs.size();
+            });
+            settled = count == null ? 0 : count;
+        } while (settled >= flushBatchSize);
+    }
+
+    /**
+     * 归还长时间未使用的本地配额，避免库存被某个实例占住
+     */
+    private void returnIdleQuota() {
+        long deadline = System.currentTimeMillis() - idleReturnAfter;
+        for (ProductStock stock : stocks.values()) {
+            if (stock.lastAccessTime > deadline || stock.available.get() <= 0) {
+                continue;
+            }
+            stock.lock.lock();
+            try {
+                int amount = stock.available.getAndSet(0);
+                if (amount <= 0) {
+                    continue;
+                }
+                try {
+                    requiresNew.executeWithoutResult(status -> {
+                        reservationMapper.addQuota(nodeId, stock.productId, -amount);
+                        productMapper.adjustStock(stock.productId, amount);
+                    });
+                    productCache.invalidate(stock.productId);
+                    logger.debug("归还空闲库存配额: productId={}, quantity={}", stock.productId, amount);
+                } catch (RuntimeException e) {
+                    stock.release(amount);
+                    throw e;
+                }
+            } finally {
+                stock.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 对账：结算全部流水，再把剩余配额全部归还商品库存，清空本地计数器
+     */
+    private synchronized void reconcile() {
+        settleLogs();
+        List<StockReservationLog> quotas = requiresNew.execute(status -> {
+            List<StockReservationLog> rows = reservationMapper.selectQuota(nodeId);
+            for (StockReservationLog row : rows) {
+                if (row.getQuantity() != 0) {
+                    productMapper.adjustStock(row.getProductId(), row.getQuantity());
+                }
+            }
+            reservationMapper.deleteQuota(nodeId);
+            return rows;
+        });
+        stocks.clear();
+        if (quotas != null) {
+            for (StockReservationLog row : quotas) {
+                productCache.invalidate(row.getProductId());
+            }
+            logger.info("库存配额对账完成: nodeId={}, products={}", nodeId, quotas.size());
+        }
+    }
+
+    /**
+     * 一次预占的额度，事务回滚或 releasingOnFailure 捕获异常时退回，只退回一次
+     */
+    private static final class Reservation implements TransactionSynchronization {
+
+        private final List<ProductStock> acquired;
+
+        private final Map<Long, Integer> quantities;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation(List<ProductStock> acquired, Map<Long, Integer> quantities) {
+            this.acquired = acquired;
+            this.quantities = quantities;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_ROLLED_BACK) {
+                release();
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                for (ProductStock stock : acquired) {
+                    stock.release(quantities.get(stock.productId));
+                }
+            }
+        }
+    }
+
+    /**
+     * 单个商品的本地可用库存
+     */
+    private static final class ProductStock {
+
+        private final Long productId;
+
+        private final AtomicInteger available = new AtomicInteger();
+
+        /**
+         * 补充、归还配额时加锁
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private volatile long lastAccessTime = System.currentTimeMillis();
+
+        private ProductStock(Long productId) {
+            this.productId = productId;
+        }
+
+        private boolean tryAcquire(int quantity) {
+            for (;;) {
+                int current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+                if (available.compareAndSet(current, current - quantity)) {
+                    lastAccessTime = System.currentTimeMillis();
+                    return true;
+                }
+            }
+        }
+
+        private void release(int quantity) {
+            available.addAndGet(quantity);
+        }
+    }
+}
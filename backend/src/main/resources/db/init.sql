@@ -52,8 +52,10 @@ CREATE TABLE `product` (
     `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     `deleted` TINYINT DEFAULT 0 COMMENT '逻辑删除: 0-未删除, 1-已删除',
     PRIMARY KEY (`id`),
-    KEY `idx_category_id` (`category_id`),
-    KEY `idx_status` (`status`)
+    KEY `idx_category_time` (`category_id`, `deleted`, `create_time`, `id`),
+    KEY `idx_status_time` (`status`, `deleted`, `create_time`, `id`),
+    KEY `idx_deleted_time` (`deleted`, `create_time`, `id`),
+    KEY `idx_update_time` (`update_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='商品表';
 
 -- 购物车表
@@ -91,8 +93,10 @@ CREATE TABLE `orders` (
     `deleted` TINYINT DEFAULT 0 COMMENT '逻辑删除: 0-未删除, 1-已删除',
     PRIMARY KEY (`id`),
     UNIQUE KEY `uk_order_no` (`order_no`),
-    KEY `idx_user_id` (`user_id`),
-    KEY `idx_status` (`status`)
+    KEY `idx_user_time` (`user_id`, `deleted`, `create_time`, `id`),
+    KEY `idx_user_status_time` (`user_id`, `status`, `deleted`, `create_time`, `id`),
+    KEY `idx_status_time` (`status`, `deleted`, `create_time`, `id`),
+    KEY `idx_deleted_time` (`deleted`, `create_time`, `id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='订单表';
 
 -- 订单项表
@@ -111,6 +115,94 @@ CREATE TABLE `order_item` (
     KEY `idx_order_id` (`order_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='订单项表';
 
+-- 订单归档表（已完成、已取消且超过保留期的订单由归档任务从订单表移入）
+DROP TABLE IF EXISTS `orders_archive`;
+CREATE TABLE `orders_archive` (
+    `id` BIGINT NOT NULL COMMENT '订单ID',
+    `order_no` VARCHAR(50) NOT NULL COMMENT '订单编号',
+    `user_id` BIGINT NOT NULL COMMENT '用户ID',
+    `total_amount` DECIMAL(10,2) NOT NULL COMMENT '订单总金额',
+    `status` TINYINT NOT NULL COMMENT '订单状态: 3-已完成, 4-已取消',
+    `receiver_name` VARCHAR(50) DEFAULT NULL COMMENT '收货人姓名',
+    `receiver_phone` VARCHAR(20) DEFAULT NULL COMMENT '收货人电话',
+    `receiver_address` VARCHAR(255) DEFAULT NULL COMMENT '收货地址',
+    `remark` VARCHAR(255) DEFAULT NULL COMMENT '订单备注',
+    `pay_time` DATETIME DEFAULT NULL COMMENT '付款时间',
+    `delivery_time` DATETIME DEFAULT NULL COMMENT '发货时间',
+    `finish_time` DATETIME DEFAULT NULL COMMENT '完成时间',
+    `create_time` DATETIME DEFAULT NULL COMMENT '创建时间',
+    `update_time` DATETIME DEFAULT NULL COMMENT '更新时间',
+    `deleted` TINYINT DEFAULT 0 COMMENT '逻辑删除: 0-未删除, 1-已删除',
+    `archive_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '归档时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_user_time` (`user_id`, `create_time`, `id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='订单归档表';
+
+-- 订单项归档表（分表后各分表的订单项ID会重复，归档时重新分配ID）
+DROP TABLE IF EXISTS `order_item_archive`;
+CREATE TABLE `order_item_archive` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '订单项ID',
+    `order_id` BIGINT NOT NULL COMMENT '订单ID',
+    `product_id` BIGINT NOT NULL COMMENT '商品ID',
+    `product_name` VARCHAR(100) NOT NULL COMMENT '商品名称',
+    `product_image` VARCHAR(255) DEFAULT NULL COMMENT '商品图片',
+    `product_price` DECIMAL(10,2) NOT NULL COMMENT '商品单价',
+    `quantity` INT NOT NULL COMMENT '购买数量',
+    `subtotal` DECIMAL(10,2) NOT NULL COMMENT '小计金额',
+    `create_time` DATETIME DEFAULT NULL COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_order_id` (`order_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='订单项归档表';
+
+-- 库存配额表（库存预占模式下，各实例从商品库存中预领的额度）
+DROP TABLE IF EXISTS `stock_quota`;
+CREATE TABLE `stock_quota` (
+    `node_id` VARCHAR(64) NOT NULL COMMENT '实例ID',
+    `product_id` BIGINT NOT NULL COMMENT '商品ID',
+    `quantity` INT NOT NULL DEFAULT 0 COMMENT '已领取且未结算的库存数量',
+    `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`node_id`, `product_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='库存配额表';
+
+-- 库存预占流水表（随订单事务写入，定时结算后删除）
+DROP TABLE IF EXISTS `stock_reservation_log`;
+CREATE TABLE `stock_reservation_log` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '流水ID',
+    `node_id` VARCHAR(64) NOT NULL COMMENT '实例ID',
+    `product_id` BIGINT NOT NULL COMMENT '商品ID',
+    `quantity` INT NOT NULL COMMENT '预占数量，负数表示归还',
+    `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_node_id` (`node_id`, `id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='库存预占流水表';
+
+-- 订单事件出箱表（随订单状态变更在同一事务中写入，异步投递成功后删除）
+DROP TABLE IF EXISTS `order_outbox`;
+CREATE TABLE `order_outbox` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '事件ID',
+    `order_id` BIGINT NOT NULL COMMENT '订单ID',
+    `event_type` VARCHAR(32) NOT NULL COMMENT '事件类型',
+    `payload` TEXT NOT NULL COMMENT '事件内容（JSON）',
+    `status` TINYINT NOT NULL DEFAULT 0 COMMENT '状态: 0-待投递, 2-投递失败（超过重试次数）',
+    `attempts` INT NOT NULL DEFAULT 0 COMMENT '已尝试投递次数',
+    `next_retry_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '下次投递时间',
+    `last_error` VARCHAR(500) DEFAULT NULL COMMENT '最近一次投递失败原因',
+    `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_status_retry` (`status`, `next_retry_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='订单事件出箱表';
+
+-- 任务租约表（多实例下定时任务按分片归属，同一分片同一时刻只由一个实例执行）
+DROP TABLE IF EXISTS `job_lease`;
+CREATE TABLE `job_lease` (
+    `job_name` VARCHAR(64) NOT NULL COMMENT '任务名称',
+    `shard` INT NOT NULL COMMENT '分片号',
+    `owner` VARCHAR(64) NOT NULL COMMENT '持有租约的实例ID',
+    `expire_time` DATETIME NOT NULL COMMENT '租约到期时间',
+    PRIMARY KEY (`job_name`, `shard`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='任务租约表';
+
 -- 插入初始数据
 
 -- 插入管理员用户 (密码: admin123)
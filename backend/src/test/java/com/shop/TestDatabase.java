@@ -0,0 +1,68 @@
+package com.shop;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 测试用 H2 内存库（MySQL 兼容模式）：按 db/init.sql 建表，并把数据源注册到 Spring 环境
+ */
+public final class TestDatabase {
+
+    private static final Pattern CREATE_TABLE = Pattern.compile("^CREATE TABLE `(\\w+)`");
+
+    private TestDatabase() {
+    }
+
+    /**
+     * 新建名为 name 的内存库并注册为数据源；不同配置的测试类各用一个库，互不影响
+     */
+    public static void register(DynamicPropertyRegistry registry, String name) {
+        String url = "jdbc:h2:mem:" + name
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+        initSchema(url);
+        registry.add("spring.datasource.driver-class-name", () -> "org.h2.Driver");
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> "sa");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    /**
+     * 用 db/init.sql 初始化 H2 内存库：去掉建库和 USE 语句，索引名加表名前缀
+     */
+    private static void initSchema(String url) {
+        StringBuilder script = new StringBuilder();
+        try (InputStream in = new ClassPathResource("db/init.sql").getInputStream()) {
+            String table = "";
+            for (String line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                if (line.startsWith("CREATE DATABASE") || line.startsWith("USE ")) {
+                    continue;
+                }
+                Matcher matcher = CREATE_TABLE.matcher(line);
+                if (matcher.find()) {
+                    table = matcher.group(1);
+                }
+                // H2 的索引名在整个 schema 内唯一，MySQL 只要求表内唯一
+                script.append(line.replace("KEY `", "KEY `" + table + "_")).append('\n');
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("读取 db/init.sql 失败", e);
+        }
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            ScriptUtils.executeSqlScript(connection,
+                    new ByteArrayResource(script.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (SQLException e) {
+            throw new IllegalStateException("初始化测试数据库失败", e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.shop.order;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 订单号生成器测试：多线程唯一、单线程递增、序列号用完时借用下一毫秒、实例号推导
+ */
+class OrderNoGeneratorTest {
+
+    private static final long EPOCH = 1704067200000L;
+
+    private static final int WORKER_ID = 5;
+
+    private static final int THREADS = 8;
+
+    private static final int IDS_PER_THREAD = 50_000;
+
+    @Test
+    void idsAreUniqueAcrossThreadsAndIncreasingWithinThread() throws Exception {
+        OrderNoGenerator generator = new OrderNoGenerator(WORKER_ID);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int gene = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                long[] ids = new long[IDS_PER_THREAD];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = generator.nextId(gene);
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        Set<Long> all = new HashSet<>(THREADS * IDS_PER_THREAD * 2);
+        for (int t = 0; t < THREADS; t++) {
+            long[] ids = futures.get(t).get();
+            for (int i = 0; i < ids.length; i++) {
+                assertTrue(all.add(ids[i]), "订单ID重复: " + ids[i]);
+                assertTrue(i == 0 || ids[i] > ids[i - 1], "同一线程内订单ID未递增");
+                assertEquals(t, gene(ids[i]));
+                assertEquals(WORKER_ID, worker(ids[i]));
+            }
+        }
+        assertEquals(THREADS * IDS_PER_THREAD, all.size());
+    }
+
+    @Test
+    void sequenceOverflowBorrowsNextMillisecond() {
+        OrderNoGenerator generator = new OrderNoGenerator(WORKER_ID);
+        // 每毫秒最多 64 个，连续生成 50 毫秒的量，必然在同一毫秒内用完序列号
+        long[] ids = new long[64 * 50];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = generator.nextId(0);
+        }
+        long now = System.currentTimeMillis() - EPOCH;
+
+        int wraps = 0;
+        for (int i = 1; i < ids.length; i++) {
+            assertTrue(ids[i] > ids[i - 1]);
+            if (timestamp(ids[i]) == timestamp(ids[i - 1])) {
+                assertEquals(sequence(ids[i - 1]) + 1, sequence(ids[i]));
+            } else if (sequence(ids[i - 1]) == 63 && timestamp(ids[i]) == timestamp(ids[i - 1]) + 1) {
+                wraps++;
+            }
+        }
+        assertTrue(wraps > 0, "序列号用完时未进入下一毫秒");
+        // 最后一个ID的时间借用了尚未到来的毫秒
+        assertTrue(timestamp(ids[ids.length - 1]) > now, "生成速度未超过每毫秒 64 个");
+    }
+
+    @Test
+    void rejectsGeneOutOfRange() {
+        OrderNoGenerator generator = new OrderNoGenerator(WORKER_ID);
+        assertThrows(IllegalArgumentException.class, () -> generator.nextId(-1));
+        assertThrows(IllegalArgumentException.class, () -> generator.nextId(OrderNoGenerator.MAX_GENE + 1));
+    }
+
+    @Test
+    void workerIdComesFromNodeOrdinalOrFailsFast() {
+        assertEquals(0, OrderNoGenerator.resolveWorkerId("shop-node-0"));
+        assertEquals(3, OrderNoGenerator.resolveWorkerId("backend-3"));
+        // Deployment 的随机 Pod 名、容器ID、超出范围的序号都无法推导
+        assertThrows(IllegalStateException.class, () -> OrderNoGenerator.resolveWorkerId("shop-node"));
+        assertThrows(IllegalStateException.class, () -> OrderNoGenerator.resolveWorkerId("backend-7d9f8b6c5-x2k45"));
+        assertThrows(IllegalStateException.class, () -> OrderNoGenerator.resolveWorkerId("3f2a9c81e0d4"));
+        assertThrows(IllegalStateException.class, () -> OrderNoGenerator.resolveWorkerId("backend-2048"));
+    }
+
+    private static long timestamp(long id) {
+        return id >>> 22;
+    }
+
+    private static long worker(long id) {
+        return (id >>> 12) & OrderNoGenerator.MAX_WORKER_ID;
+    }
+
+    private static long sequence(long id) {
+        return (id >>> 6) & 63;
+    }
+
+    private static long gene(long id) {
+        return id & OrderNoGenerator.MAX_GENE;
+    }
+}
@@ -0,0 +1,93 @@
+package com.shop.service;
+
+import com.shop.TestDatabase;
+import com.shop.entity.Product;
+import com.shop.entity.StockReservationLog;
+import com.shop.exception.BusinessException;
+import com.shop.mapper.ProductMapper;
+import com.shop.mapper.StockReservationMapper;
+import com.shop.stock.StockReservationEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 开启库存预占时的下单测试：库存不足一个批次时整批领走，product.stock 归零后后续订单仍按本地额度判定
+ */
+@SpringBootTest(properties = {
+        "shop.node-id=reservation-test-0",
+        "shop.stock.reservation.enabled=true",
+        "shop.stock.reservation.chunk-size=20"
+})
+@ActiveProfiles("test")
+class OrderReservationTest {
+
+    private static final String NODE_ID = "reservation-test-0";
+
+    private static final int INITIAL_STOCK = 5;
+
+    private static final Long USER_ID = 1L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private StockReservationMapper reservationMapper;
+
+    @Autowired
+    private StockReservationEngine stockReservationEngine;
+
+    @DynamicPropertySource
+    static void dataSource(DynamicPropertyRegistry registry) {
+        TestDatabase.register(registry, "shop_reservation_test");
+    }
+
+    @Test
+    void sequentialOrdersUseQuotaAfterStockIsGranted() {
+        Product product = new Product();
+        product.setName("预占测试商品");
+        product.setPrice(new BigDecimal("9.90"));
+        product.setStock(INITIAL_STOCK);
+        product.setStatus(1);
+        product.setSales(0);
+        product.setDeleted(0);
+        productMapper.insert(product);
+
+        // 第一单领走全部库存（不足一个批次），product.stock 归零
+        placeOrder(product.getId(), 2);
+        assertEquals(0, productMapper.selectById(product.getId()).getStock());
+
+        // 第二单用本地剩余额度，不能因 product.stock 为零被拒绝
+        placeOrder(product.getId(), 2);
+
+        // 只剩 1 件
+        assertThrows(BusinessException.class, () -> placeOrder(product.getId(), 2));
+        cartService.clearCart(USER_ID);
+
+        stockReservationEngine.flush();
+        List<StockReservationLog> quotas = reservationMapper.selectQuota(NODE_ID);
+        assertEquals(1, quotas.size());
+        assertEquals(1, quotas.get(0).getQuantity());
+        assertEquals(0, productMapper.selectById(product.getId()).getStock());
+    }
+
+    private void placeOrder(Long productId, int quantity) {
+        cartService.addToCart(USER_ID, productId, quantity);
+        orderService.createOrder(USER_ID, "测试", "13800000000", "测试地址", null);
+    }
+}
@@ -0,0 +1,168 @@
+package com.shop.service;
+
+import com.shop.TestDatabase;
+import com.shop.entity.Product;
+import com.shop.exception.StockShortageException;
+import com.shop.mapper.ProductMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 批量扣减库存的并发测试：多个线程对有重叠的商品集合并发扣减，不死锁、不超卖、库存不足的商品报告准确
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductServiceConcurrencyTest {
+
+    private static final int PRODUCTS = 8;
+
+    private static final int INITIAL_STOCK = 30;
+
+    private static final int THREADS = 16;
+
+    private static final int ORDERS_PER_THREAD = 40;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void dataSource(DynamicPropertyRegistry registry) {
+        TestDatabase.register(registry, "shop_test");
+    }
+
+    @BeforeEach
+    void createProducts() {
+        productIds.clear();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setName("并发测试商品" + i);
+            product.setPrice(new BigDecimal("9.90"));
+            product.setStock(INITIAL_STOCK);
+            product.setStatus(1);
+            product.setSales(0);
+            product.setDeleted(0);
+            productMapper.insert(product);
+            productIds.add(product.getId());
+        }
+    }
+
+    @Test
+    void concurrentReduceStocksNeitherDeadlocksNorOversells() throws InterruptedException {
+        AtomicIntegerArray sold = new AtomicIntegerArray(PRODUCTS);
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        Queue<Map.Entry<Map<Long, Integer>, List<Long>>> shortages = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int n = 0; n < ORDERS_PER_THREAD; n++) {
+                        Map<Long, Integer> quantities = randomOrder();
+                        try {
+                            productService.reduceStocks(quantities);
+                            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                                sold.addAndGet(productIds.indexOf(entry.getKey()), entry.getValue());
+                            }
+                        } catch (StockShortageException e) {
+                            shortages.add(Map.entry(quantities, e.getProductIds()));
+                        }
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        // 死锁时线程会一直等到锁超时，这里以整体超时判定
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS), "批量扣减未在60秒内完成，疑似死锁");
+        if (!errors.isEmpty()) {
+            fail("批量扣减出现非库存不足的异常", errors.peek());
+        }
+
+        for (int i = 0; i < PRODUCTS; i++) {
+            int stock = productMapper.selectById(productIds.get(i)).getStock();
+            assertTrue(stock >= 0, "商品库存为负");
+            assertEquals(INITIAL_STOCK - sold.get(i), stock, "扣减数量与成功下单数量不一致");
+        }
+        // 需求总量远超库存，必然出现库存不足
+        assertTrue(!shortages.isEmpty());
+        for (Map.Entry<Map<Long, Integer>, List<Long>> shortage : shortages) {
+            List<Long> reported = shortage.getValue();
+            assertTrue(!reported.isEmpty());
+            for (int i = 0; i < reported.size(); i++) {
+                Long productId = reported.get(i);
+                assertTrue(shortage.getKey().containsKey(productId), "报告了订单之外的商品");
+                assertTrue(i == 0 || reported.get(i - 1) < productId, "库存不足的商品未按ID升序报告");
+                // 库存只减不增，当时不足的商品现在仍然不足
+                int stock = productMapper.selectById(productId).getStock();
+                assertTrue(stock < shortage.getKey().get(productId), "报告库存不足的商品实际库存充足");
+            }
+        }
+    }
+
+    @Test
+    void reduceStocksReportsExactlyTheShortProducts() {
+        Long soldOut = productIds.get(1);
+        Long low = productIds.get(3);
+        Long enough = productIds.get(5);
+        productService.reduceStocks(Map.of(soldOut, INITIAL_STOCK, low, INITIAL_STOCK - 2));
+
+        Map<Long, Integer> quantities = new HashMap<>();
+        quantities.put(enough, INITIAL_STOCK);
+        quantities.put(low, 3);
+        quantities.put(soldOut, 1);
+        try {
+            productService.reduceStocks(quantities);
+            fail("库存不足时应抛出 StockShortageException");
+        } catch (StockShortageException e) {
+            assertEquals(List.of(soldOut, low), e.getProductIds());
+        }
+        // 整批不扣减
+        assertEquals(INITIAL_STOCK, productMapper.selectById(enough).getStock());
+        assertEquals(2, productMapper.selectById(low).getStock());
+        assertEquals(0, productMapper.selectById(soldOut).getStock());
+    }
+
+    /**
+     * 从商品中随机挑选2到4个，每个买1到3件；HashMap 打乱顺序，由 reduceStocks 自己排序加锁
+     */
+    private Map<Long, Integer> randomOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<Long, Integer> quantities = new HashMap<>();
+        int size = random.nextInt(2, 5);
+        while (quantities.size() < size) {
+            quantities.put(productIds.get(random.nextInt(PRODUCTS)), random.nextInt(1, 4));
+        }
+        return quantities;
+    }
+}
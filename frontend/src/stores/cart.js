@@ -23,8 +23,9 @@ export const useCartStore = defineStore('cart', () => {
 
   const fetchCartList = async () => {
     if (!userStore.userId) return
-    const res = await api.get(`/cart/list/${userStore.userId}`)
-    cartList.value = res.data || []
+    // 列表与合计一次取回
+    const res = await api.get(`/cart/view/${userStore.userId}`)
+    cartList.value = res.data?.items || []
   }
 
   const addToCart = async (productId, quantity = 1) => {
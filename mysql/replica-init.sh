@@ -0,0 +1,36 @@
+#!/bin/bash
+# ==========================================
+# MySQL 从库初始化（仅在数据目录为空的首次启动时执行）
+# 从主库导出当前数据（带 GTID 位点）导入本库，再按 GTID 自动定位开始复制
+# ==========================================
+set -e
+
+PRIMARY_HOST="${MYSQL_PRIMARY_HOST:-mysql}"
+
+echo "等待主库 ${PRIMARY_HOST} 就绪..."
+until mysqladmin ping -h"${PRIMARY_HOST}" -uroot -p"${MYSQL_ROOT_PASSWORD}" --silent; do
+    sleep 2
+done
+
+echo "从主库导出 ${MYSQL_DATABASE}..."
+mysqldump -h"${PRIMARY_HOST}" -uroot -p"${MYSQL_ROOT_PASSWORD}" \
+    --databases "${MYSQL_DATABASE}" --single-transaction --set-gtid-purged=ON \
+    --routines --triggers > /tmp/primary.sql
+
+# 清掉本库初始化时产生的 GTID，导入后 GTID_PURGED 即为导出时主库的位点
+mysql -uroot -p"${MYSQL_ROOT_PASSWORD}" -e "RESET MASTER"
+mysql -uroot -p"${MYSQL_ROOT_PASSWORD}" < /tmp/primary.sql
+rm -f /tmp/primary.sql
+
+mysql -uroot -p"${MYSQL_ROOT_PASSWORD}" <<SQL
+CHANGE REPLICATION SOURCE TO
+    SOURCE_HOST='${PRIMARY_HOST}',
+    SOURCE_USER='root',
+    SOURCE_PASSWORD='${MYSQL_ROOT_PASSWORD}',
+    SOURCE_AUTO_POSITION=1,
+    GET_SOURCE_PUBLIC_KEY=1;
+START REPLICA;
+SET PERSIST super_read_only = ON;
+SQL
+
+echo "从库复制已开启"